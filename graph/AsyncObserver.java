@@ -0,0 +1,316 @@
+package graph;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <P>A GraphAlgorithmObserver that passes every notification on to
+ * another observer on a thread of its own, so that a slow observer (one
+ * that animates the search, say) does not slow the search down.</P>
+ *
+ * <P>The search thread only writes each event into a bounded ring
+ * buffer:  a kind, a vertex and a cost, with no allocation.  The
+ * delivery thread takes all of the events waiting in the buffer at once
+ * and hands them to the observer in order.  When the buffer is full,
+ * visit and finished-vertex events are handled as the
+ * BackpressurePolicy says; the other events always wait for room.</P>
+ *
+ * <P>The buffer has a single producer, so an AsyncObserver must only be
+ * notified by one search at a time, which is how the graphs in this
+ * package call their observers.  close() stops the delivery thread once
+ * everything has been delivered.  If the observer throws an Error, delivery
+ * stops there, and the next notification, flush or close throws.</P>
+ *
+ * @param <V>
+ */
+public final class AsyncObserver<V> implements GraphAlgorithmObserver<V>, AutoCloseable {
+
+	// Event kinds
+	private static final byte DFS_BEGUN = 0;
+	private static final byte BFS_BEGUN = 1;
+	private static final byte VISIT = 2;
+	private static final byte SEARCH_OVER = 3;
+	private static final byte DIJKSTRA_BEGUN = 4;
+	private static final byte FINISHED = 5;
+	private static final byte DIJKSTRA_OVER = 6;
+
+	// How long the search thread sleeps when it has to wait for room
+	private static final long WAIT_NANOS = 50_000;
+
+	private final GraphAlgorithmObserver<V> observer;
+	private final BackpressurePolicy policy;
+
+	// The ring buffer.  Slot i holds the event with sequence number
+	// s where s & mask == i; items holds the vertex, or the path for
+	// DIJKSTRA_OVER.
+	private final int mask;
+	private final byte[] kinds;
+	private final Object[] items;
+	private final int[] costs;
+
+	// Sequence numbers of the next event to write and to deliver.  Each
+	// is written by one thread only; lazySet publishes the slots emptied
+	// before tail.  head is set with a full volatile write, so that the
+	// search thread cannot miss sleeping being raised (the delivery
+	// thread raises it, then looks at head once more before parking).
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private volatile boolean sleeping;
+
+	// Search thread only
+	private long knownTail;
+	private boolean hasPending;
+	private byte pendingKind;
+	private Object pendingItem;
+	private int pendingCost;
+
+	private volatile long dropped;
+	private volatile boolean closed;
+	private volatile Throwable failure;
+	private volatile boolean dead;
+	private final Thread deliverer;
+
+	/**
+	 * Starts the delivery thread.
+	 *
+	 * @param observer the observer to deliver the events to
+	 * @param capacity the most events that can wait in the buffer;
+	 * rounded up to a power of two
+	 * @param policy what to do with visits when the buffer is full
+	 */
+	public AsyncObserver(GraphAlgorithmObserver<V> observer, int capacity, BackpressurePolicy policy) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException();
+		}
+		this.observer = observer;
+		this.policy = policy;
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size *= 2;
+		}
+		mask = size - 1;
+		kinds = new byte[size];
+		items = new Object[size];
+		costs = new int[size];
+		deliverer = new Thread(this::deliver, "AsyncObserver");
+		deliverer.setDaemon(true);
+		deliverer.start();
+	}
+
+	public void notifyDFSHasBegun() {
+		offer(DFS_BEGUN, null, 0);
+	}
+
+	public void notifyBFSHasBegun() {
+		offer(BFS_BEGUN, null, 0);
+	}
+
+	public void notifyVisit(V vertexBeingVisited) {
+		offer(VISIT, vertexBeingVisited, 0);
+	}
+
+	public void notifySearchIsOver() {
+		offer(SEARCH_OVER, null, 0);
+	}
+
+	public void notifyDijkstraHasBegun() {
+		offer(DIJKSTRA_BEGUN, null, 0);
+	}
+
+	public void notifyDijkstraVertexFinished(V vertexAddedToFinishedSet, Integer costOfPath) {
+		offer(FINISHED, vertexAddedToFinishedSet, costOfPath);
+	}
+
+	public void notifyDijkstraIsOver(List<V> path) {
+		offer(DIJKSTRA_OVER, path, 0);
+	}
+
+	/** Returns the number of events thrown away (DROP) or replaced by a
+	 * newer one (COALESCE) so far.
+	 * @return number of events not delivered
+	 */
+	public long droppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * Waits until every event notified so far has been delivered.  Must
+	 * be called from the thread that notifies this observer.
+	 *
+	 * @throws IllegalStateException if the observer threw an exception
+	 * while an event was being delivered, or an Error that stopped the
+	 * delivery thread
+	 */
+	public void flush() {
+		if (dead) {
+			throw new IllegalStateException(failure);
+		}
+		if (hasPending) {
+			hasPending = false;
+			put(pendingKind, pendingItem, pendingCost);
+			pendingItem = null;
+		}
+		long last = head.get();
+		while (tail.get() < last && !dead) {
+			LockSupport.unpark(deliverer);
+			LockSupport.parkNanos(WAIT_NANOS);
+		}
+		Throwable e = failure;
+		if (e != null) {
+			if (!dead) {
+				failure = null;
+			}
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Delivers everything still waiting, then stops the delivery thread.
+	 *
+	 * @throws IllegalStateException if the observer threw an exception
+	 * while an event was being delivered
+	 */
+	public void close() {
+		try {
+			flush();
+		} finally {
+			closed = true;
+			LockSupport.unpark(deliverer);
+		}
+	}
+
+	/* Called on the search thread for every notification */
+	private void offer(byte kind, Object item, int cost) {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		if (dead) {
+			throw new IllegalStateException(failure);
+		}
+		boolean droppable = kind == VISIT || kind == FINISHED;
+		if (!droppable || policy == BackpressurePolicy.BLOCK) {
+			if (hasPending) {
+				hasPending = false;
+				put(pendingKind, pendingItem, pendingCost);
+				pendingItem = null;
+			}
+			put(kind, item, cost);
+		} else if (policy == BackpressurePolicy.DROP) {
+			if (!tryPut(kind, item, cost)) {
+				dropped++;
+			}
+		} else {
+			// COALESCE:  the waiting event keeps its place in the order,
+			// so nothing newer may overtake it
+			if (hasPending && tryPut(pendingKind, pendingItem, pendingCost)) {
+				hasPending = false;
+				pendingItem = null;
+			}
+			if (hasPending || !tryPut(kind, item, cost)) {
+				if (hasPending) {
+					dropped++;
+				}
+				hasPending = true;
+				pendingKind = kind;
+				pendingItem = item;
+				pendingCost = cost;
+			}
+		}
+	}
+
+	private void put(byte kind, Object item, int cost) {
+		while (!tryPut(kind, item, cost)) {
+			if (dead) {
+				throw new IllegalStateException(failure);
+			}
+			LockSupport.unpark(deliverer);
+			LockSupport.parkNanos(WAIT_NANOS);
+		}
+	}
+
+	private boolean tryPut(byte kind, Object item, int cost) {
+		long next = head.get();
+		if (next - knownTail > mask) {
+			knownTail = tail.get();
+			if (next - knownTail > mask) {
+				return false;
+			}
+		}
+		int slot = (int) next & mask;
+		kinds[slot] = kind;
+		items[slot] = item;
+		costs[slot] = cost;
+		head.set(next + 1);
+		if (sleeping) {
+			LockSupport.unpark(deliverer);
+		}
+		return true;
+	}
+
+	/* The delivery thread:  hands over everything waiting, in batches */
+	private void deliver() {
+		while (true) {
+			long first = tail.get();
+			long last = head.get();
+			if (first == last) {
+				if (closed) {
+					return;
+				}
+				// Sleep until the search thread publishes an event or
+				// close() is called
+				sleeping = true;
+				if (head.get() == first && !closed) {
+					LockSupport.park(this);
+				}
+				sleeping = false;
+				continue;
+			}
+			for (long next = first; next < last; next++) {
+				int slot = (int) next & mask;
+				try {
+					deliver(kinds[slot], items[slot], costs[slot]);
+				} catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				} catch (Throwable e) {
+					// An Error leaves the observer in no state to carry
+					// on; stop, and let the search thread see why
+					failure = e;
+					dead = true;
+					return;
+				}
+				items[slot] = null;
+			}
+			tail.lazySet(last);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void deliver(byte kind, Object item, int cost) {
+		switch (kind) {
+		case DFS_BEGUN:
+			observer.notifyDFSHasBegun();
+			break;
+		case BFS_BEGUN:
+			observer.notifyBFSHasBegun();
+			break;
+		case VISIT:
+			observer.notifyVisit((V) item);
+			break;
+		case SEARCH_OVER:
+			observer.notifySearchIsOver();
+			break;
+		case DIJKSTRA_BEGUN:
+			observer.notifyDijkstraHasBegun();
+			break;
+		case FINISHED:
+			observer.notifyDijkstraVertexFinished((V) item, cost);
+			break;
+		default:
+			observer.notifyDijkstraIsOver((List<V>) item);
+			break;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package graph;
+
+import java.util.List;
+
+/**
+ * <P>Can be passed to the parallel breadth-first search
+ * (WeightedGraph.parallelBFS) to hear about each level of the search
+ * as it completes.  Level 0 holds just the source, level 1 the vertices
+ * one edge away from it, and so on.</P>
+ *
+ * @param <V>
+ */
+public interface BFSLevelObserver<V> {
+
+	/** Called by the search once every vertex of a level has been
+	 * found, before the next level is expanded.  The order of the
+	 * vertices within a level is not specified.
+	 *
+	 * @param level number of edges between the source and these vertices
+	 * @param vertices the vertices of this level
+	 */
+	public void notifyLevel(int level, List<V> vertices);
+}
@@ -0,0 +1,25 @@
+package graph;
+
+/**
+ * <P>What an AsyncObserver does with a visit or finished-vertex event
+ * when its buffer is full.  Events that begin or end a search are never
+ * lost; they always wait for room.</P>
+ */
+public enum BackpressurePolicy {
+
+	/** Wait until the observer has caught up.  Every event is
+	 * delivered, but the search runs no faster than the observer.
+	 */
+	BLOCK,
+
+	/** Throw the event away.  The search never waits, and the observer
+	 * sees a subset of the visits.
+	 */
+	DROP,
+
+	/** Keep only the newest event that did not fit, and deliver it as
+	 * soon as there is room.  The search never waits, and the observer
+	 * always sees the latest vertex the search has reached.
+	 */
+	COALESCE
+}
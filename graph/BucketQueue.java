@@ -0,0 +1,97 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>A bucket queue for Dijkstra's algorithm on graphs whose edge
+ * weights are integers from 0 to maxWeight (Dial's algorithm).</P>
+ *
+ * <P>While Dijkstra's algorithm runs, every priority waiting in the
+ * queue lies between the priority last removed and that plus
+ * maxWeight.  So maxWeight + 1 buckets, used circularly and indexed by
+ * priority modulo maxWeight + 1, are enough to hold them all, and no
+ * two waiting priorities ever share a bucket unless they are equal.
+ * Each bucket is a doubly linked list threaded through int arrays, so
+ * inserting, moving and removing a vertex are all O(1).  Finding the
+ * next non-empty bucket costs O(maxWeight) at worst, giving
+ * O(V + E + maxWeight * V) in total, and in practice about
+ * O(V + E + largest cost).</P>
+ *
+ * <P>Priorities must be inserted in this monotone way; it is not a
+ * general purpose priority queue.</P>
+ */
+final class BucketQueue implements VertexQueue {
+
+	private final int[] head;      // first vertex in each bucket, or -1
+	private final int[] next;      // next vertex in the same bucket, or -1
+	private final int[] prev;      // previous vertex in the same bucket, or -1
+	private final int[] priority;  // only meaningful while queued
+	private final boolean[] queued;
+	private int size;
+	private int current;           // the smallest priority that may be queued
+
+	/**
+	 * @param capacity number of distinct vertex ids
+	 * @param maxWeight largest edge weight of the graph
+	 */
+	BucketQueue(int capacity, int maxWeight) {
+		head = new int[maxWeight + 1];
+		next = new int[capacity];
+		prev = new int[capacity];
+		priority = new int[capacity];
+		queued = new boolean[capacity];
+		Arrays.fill(head, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void insertOrDecrease(int vertex, int newPriority) {
+		if (queued[vertex]) {
+			if (newPriority >= priority[vertex]) {
+				return;
+			}
+			unlink(vertex);
+		} else {
+			if (size == 0 && newPriority < current) {
+				// Starting again after being emptied by an earlier search
+				current = newPriority;
+			}
+			queued[vertex] = true;
+			size++;
+		}
+		priority[vertex] = newPriority;
+		int bucket = newPriority % head.length;
+		prev[vertex] = -1;
+		next[vertex] = head[bucket];
+		if (head[bucket] >= 0) {
+			prev[head[bucket]] = vertex;
+		}
+		head[bucket] = vertex;
+	}
+
+	public int removeMin() {
+		int bucket = current % head.length;
+		while (head[bucket] < 0) {
+			current++;
+			bucket = bucket + 1 == head.length ? 0 : bucket + 1;
+		}
+		int vertex = head[bucket];
+		unlink(vertex);
+		queued[vertex] = false;
+		size--;
+		return vertex;
+	}
+
+	private void unlink(int vertex) {
+		if (prev[vertex] >= 0) {
+			next[prev[vertex]] = next[vertex];
+		} else {
+			head[priority[vertex] % head.length] = next[vertex];
+		}
+		if (next[vertex] >= 0) {
+			prev[next[vertex]] = prev[vertex];
+		}
+	}
+}
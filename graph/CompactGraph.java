@@ -0,0 +1,348 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <P>An immutable snapshot of a WeightedGraph, produced by
+ * WeightedGraph.freeze().  The vertices are numbered 0 .. n - 1 and
+ * the edges are stored in "compressed sparse row" form:  the edges
+ * leaving vertex i are at positions offsets[i] .. offsets[i + 1] - 1
+ * of the targets and weights arrays.</P>
+ *
+ * <P>Because everything is held in a handful of int arrays, a
+ * CompactGraph uses far less memory than the WeightedGraph it came
+ * from and is much faster to search.  It is intended for graphs that
+ * are built once and then queried many times.  Since the snapshot
+ * never changes, it is safe to query from several threads as long as
+ * no observers are registered.</P>
+ *
+ * <P>The snapshot supports the same three algorithms as
+ * WeightedGraph (DFS, BFS and Dijkstra) and notifies its own
+ * collection of GraphAlgorithmObservers in exactly the same way.</P>
+ */
+public final class CompactGraph<V> extends IndexedGraph<V> {
+
+	// Vertex ids, copied from the WeightedGraph when it was frozen
+	private final VertexIndex<V> vertices;
+
+	// CSR adjacency, see class comment
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+	private final int maxWeight;
+
+	private final ObserverList<V> observerList;
+
+	// The same graph with every edge turned around, built when first needed
+	private volatile CompactGraph<V> reversed;
+
+	/** Only WeightedGraph.freeze() creates snapshots.  The arrays are
+	 * used as given, not copied.
+	 */
+	CompactGraph(VertexIndex<V> vertices, int[] offsets, int[] targets, int[] weights,
+			ObserverList<V> observers) {
+		this.vertices = vertices;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		int max = 0;
+		for (int w : weights) {
+			max = Math.max(max, w);
+		}
+		this.maxWeight = max;
+		this.observerList = new ObserverList<>(observers);
+	}
+
+	/** Add a GraphAlgorithmObserver to the collection maintained
+	 * by this snapshot.
+	 *
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer) {
+		observerList.add(observer);
+	}
+
+	/** Add a GraphAlgorithmObserver that is only told about some kinds
+	 * of event.  See WeightedGraph.addObserver(observer, events).
+	 *
+	 * @param observer
+	 * @param events the kinds of event to notify the observer of
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer, Set<SearchEvent> events) {
+		observerList.add(observer, events);
+	}
+
+	/** Returns the number of vertices in the snapshot.
+	 * @return number of vertices
+	 */
+	public int vertexCount() {
+		return vertices.size();
+	}
+
+	/** Returns the number of edges in the snapshot.
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/** Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return vertices.indexOf(vertex) >= 0;
+	}
+
+	/**
+	 * <P>Returns weight of the edge connecting one vertex
+	 * to another.  Returns null if the edge does not
+	 * exist.</P>
+	 *
+	 * @param from vertex where edge begins
+	 * @param to vertex where edge terminates
+	 * @return weight of the edge, or null if there is
+	 * no edge connecting these vertices
+	 * @throws IllegalArgumentException if either of
+	 * the vertices specified are not in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		for (int e = offsets[f]; e < offsets[f + 1]; e++) {
+			if (targets[e] == t) {
+				return weights[e];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * <P>Writes this snapshot to a file that MappedGraph.open can search
+	 * without reading it in.  See MappedGraph for the format.</P>
+	 *
+	 * @param file the file to write; replaced if it exists
+	 * @param codec encodes the vertices
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file, VertexCodec<? super V> codec) throws IOException {
+		MappedGraph.write(this, codec, file);
+	}
+
+	/**
+	 * <P>Breadth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoBFS.</P>
+	 *
+	 * @param start vertex where search begins
+	 * @param end the algorithm terminates just after this vertex
+	 * is visited
+	 */
+	public void DoBFS(V start, V end) {
+		GraphSearch.breadthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Depth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoDFS.</P>
+	 *
+	 * @param start vertex where search begins
+	 * @param end the algorithm terminates just after this vertex
+	 * is visited
+	 */
+	public void DoDFS(V start, V end) {
+		GraphSearch.depthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start", with the same observer
+	 * notifications as WeightedGraph.DoDijsktra.</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 */
+	public void DoDijsktra(V start, V end) {
+		DoDijsktra(start, end, DijkstraMode.ALL_VERTICES);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start" to "end", doing only as much
+	 * work as the mode asks for.  See WeightedGraph.DoDijsktra(V, V,
+	 * DijkstraMode).</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 * @param mode how far the search needs to go
+	 */
+	public void DoDijsktra(V start, V end, DijkstraMode mode) {
+		int s = requireIndex(start);
+		int e = requireIndex(end);
+		if (mode == DijkstraMode.BIDIRECTIONAL) {
+			GraphSearch.bidirectionalDijkstra(this, reversed(), s, e, observerList);
+		} else {
+			GraphSearch.dijkstra(this, s, e, mode == DijkstraMode.POINT_TO_POINT, observerList);
+		}
+	}
+
+	/**
+	 * <P>A* search from "start" to "end", with the same observer
+	 * notifications as WeightedGraph.DoAStar.</P>
+	 *
+	 * @param start vertex where the search will start
+	 * @param end vertex the search is trying to reach
+	 * @param heuristic estimates the remaining cost from a vertex to "end"
+	 */
+	public void DoAStar(V start, V end, Heuristic<? super V> heuristic) {
+		GraphSearch.aStar(this, requireIndex(start), requireIndex(end), heuristic, observerList);
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every vertex.
+	 * No observers are notified.  See WeightedGraph.shortestPaths.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @return lowest costs and predecessors for every vertex
+	 * @throws IllegalArgumentException if the source is not in the graph
+	 */
+	public ShortestPathResult<V> shortestPaths(V source) {
+		return GraphSearch.shortestPaths(this, requireIndex(source), GraphSearch.newQueue(this));
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from each of the given sources
+	 * to every vertex, running the searches in parallel on the common
+	 * ForkJoinPool.  No observers are notified.</P>
+	 *
+	 * @param sources the vertices to search from
+	 * @return one result per distinct source, in the order the sources
+	 * were given
+	 * @throws IllegalArgumentException if a source is not in the graph
+	 */
+	public Map<V, ShortestPathResult<V>> shortestPathsFrom(Collection<? extends V> sources) {
+		return shortestPathsFrom(sources, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from each of the given sources
+	 * to every vertex, running the searches in parallel on the given
+	 * pool.  No observers are notified.</P>
+	 *
+	 * @param sources the vertices to search from
+	 * @param pool the threads to run the searches on
+	 * @return one result per distinct source, in the order the sources
+	 * were given
+	 * @throws IllegalArgumentException if a source is not in the graph
+	 */
+	public Map<V, ShortestPathResult<V>> shortestPathsFrom(Collection<? extends V> sources, ForkJoinPool pool) {
+		return GraphSearch.shortestPaths(this, sources, pool);
+	}
+
+	/**
+	 * <P>Parallel breadth-first search from "source" over the whole
+	 * graph, on the common ForkJoinPool.  See WeightedGraph.parallelBFS.</P>
+	 *
+	 * @param source vertex the search starts from
+	 * @return hop counts (as costs) and BFS parents (as predecessors)
+	 */
+	public ShortestPathResult<V> parallelBFS(V source) {
+		return parallelBFS(source, ForkJoinPool.commonPool(), null);
+	}
+
+	/**
+	 * <P>Parallel breadth-first search from "source" over the whole
+	 * graph, on the given pool.  See WeightedGraph.parallelBFS.</P>
+	 *
+	 * @param source vertex the search starts from
+	 * @param pool the threads to run the search on
+	 * @param levelObserver told about each level as it completes, or null
+	 * @return hop counts (as costs) and BFS parents (as predecessors)
+	 */
+	public ShortestPathResult<V> parallelBFS(V source, ForkJoinPool pool, BFSLevelObserver<V> levelObserver) {
+		return ParallelBFS.run(this, reversed(), requireIndex(source), pool, levelObserver);
+	}
+
+	/**
+	 * <P>Delta-stepping shortest paths from "source", on the common
+	 * ForkJoinPool.  See WeightedGraph.deltaStepping.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @param delta bucket width, at least 1
+	 * @return lowest costs and predecessors for every vertex
+	 */
+	public ShortestPathResult<V> deltaStepping(V source, int delta) {
+		return deltaStepping(source, delta, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * <P>Delta-stepping shortest paths from "source", on the given pool.
+	 * See WeightedGraph.deltaStepping.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @param delta bucket width, at least 1
+	 * @param pool the threads to run the search on
+	 * @return lowest costs and predecessors for every vertex
+	 */
+	public ShortestPathResult<V> deltaStepping(V source, int delta, ForkJoinPool pool) {
+		return DeltaStepping.run(this, reversed(), requireIndex(source), delta, pool);
+	}
+
+	/** Returns this graph with every edge turned around.  It is built
+	 * on first use and then kept; it has no observers.
+	 */
+	CompactGraph<V> reversed() {
+		CompactGraph<V> result = reversed;
+		if (result == null) {
+			int n = vertexCount();
+			int[] reverseOffsets = new int[n + 1];
+			for (int e = 0; e < targets.length; e++) {
+				reverseOffsets[targets[e] + 1]++;
+			}
+			for (int i = 0; i < n; i++) {
+				reverseOffsets[i + 1] += reverseOffsets[i];
+			}
+			int[] next = Arrays.copyOf(reverseOffsets, n);
+			int[] reverseTargets = new int[targets.length];
+			int[] reverseWeights = new int[targets.length];
+			for (int v = 0; v < n; v++) {
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int slot = next[targets[e]]++;
+					reverseTargets[slot] = v;
+					reverseWeights[slot] = weights[e];
+				}
+			}
+			result = new CompactGraph<>(vertices, reverseOffsets, reverseTargets, reverseWeights,
+					new ObserverList<V>());
+			reversed = result;
+		}
+		return result;
+	}
+
+	int maxWeight() {
+		return maxWeight;
+	}
+
+	V vertexAt(int id) {
+		return vertices.get(id);
+	}
+
+	int indexOf(Object vertex) {
+		return vertices.indexOf(vertex);
+	}
+
+	int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	int target(int v, int i) {
+		return targets[offsets[v] + i];
+	}
+
+	int weight(int v, int i) {
+		return weights[offsets[v] + i];
+	}
+}
@@ -0,0 +1,273 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * <P>Delta-stepping single-source shortest paths (Meyer and Sanders).
+ * Tentative costs are grouped into buckets of width delta:  bucket i
+ * holds the vertices whose tentative cost is in
+ * [i * delta, (i + 1) * delta).  Buckets are settled in order, but all
+ * of the vertices in a bucket are relaxed in parallel.</P>
+ *
+ * <P>Edges no heavier than delta are "light".  Relaxing a light edge
+ * can put a vertex back into the current bucket, so the light edges of
+ * the current bucket are relaxed in rounds until the bucket stays
+ * empty.  The heavy edges of every vertex removed from the bucket are
+ * then relaxed once, since they can only reach later buckets.</P>
+ *
+ * <P>Costs are lowered with an atomic minimum, so the final costs are
+ * exactly those Dijkstra's algorithm computes.  Predecessors are picked
+ * afterwards, in a parallel pass that gives each vertex a neighbour
+ * that lies on a lowest cost path.</P>
+ *
+ * <P>A small delta behaves like Dijkstra's algorithm, with little
+ * parallel work per bucket.  A large delta behaves like Bellman-Ford,
+ * with plenty of parallelism but vertices relaxed many times.  The
+ * average edge weight is a reasonable place to start.</P>
+ *
+ * <P>A vertex is never filed more than maxWeight / delta + 1 buckets
+ * after the current one, so the buckets are kept in a cyclic window of
+ * maxWeight / delta + 2 slots, reused as the search moves on, however
+ * large the costs get.  The slots in use are kept in a heap by bucket
+ * number, so runs of empty buckets are skipped rather than stepped
+ * through.  A delta so small that the window would need more than
+ * MAX_WINDOW slots is rejected.</P>
+ */
+final class DeltaStepping<V> {
+
+	// Vertices (or requests) handled by one parallel task
+	private static final int CHUNK = 1024;
+
+	// The most bucket slots a search may use
+	private static final int MAX_WINDOW = 1 << 22;
+
+	private final IndexedGraph<V> graph;
+	private final IndexedGraph<V> reverse;
+	private final int delta;
+	private final ForkJoinPool pool;
+	private final int n;
+	private final AtomicIntegerArray cost;
+
+	// bucketOf[v] is the bucket v was last filed under, or -1.  A vertex
+	// is only filed once per bucket, however often its cost drops.
+	private final AtomicIntegerArray bucketOf;
+
+	// Bucket contents; bucket i is in slot i % buckets.length.  A bucket
+	// may contain stale entries for vertices that have since moved to an
+	// earlier bucket; those are skipped.  pending holds the slots in use,
+	// each with the number of the bucket in it as its priority.
+	private final IntList[] buckets;
+	private final IndexedMinHeap pending;
+
+	private DeltaStepping(IndexedGraph<V> graph, IndexedGraph<V> reverse, int delta, int window,
+			ForkJoinPool pool) {
+		this.graph = graph;
+		this.reverse = reverse;
+		this.delta = delta;
+		this.pool = pool;
+		buckets = new IntList[window];
+		pending = new IndexedMinHeap(window);
+		n = graph.vertexCount();
+		cost = new AtomicIntegerArray(n);
+		bucketOf = new AtomicIntegerArray(n);
+		for (int v = 0; v < n; v++) {
+			cost.set(v, Integer.MAX_VALUE);
+			bucketOf.set(v, -1);
+		}
+	}
+
+	/** Computes lowest costs from source.  reverse must be graph with its
+	 * edges turned around; it is used to choose the predecessors.
+	 */
+	static <V> ShortestPathResult<V> run(IndexedGraph<V> graph, IndexedGraph<V> reverse, int source,
+			int delta, ForkJoinPool pool) {
+		if (delta < 1) {
+			throw new IllegalArgumentException();
+		}
+		long window = graph.maxWeight() / delta + 2;
+		if (window > MAX_WINDOW) {
+			throw new IllegalArgumentException("delta " + delta + " is too small for weights up to "
+					+ graph.maxWeight());
+		}
+		DeltaStepping<V> search = new DeltaStepping<>(graph, reverse, delta, (int) window, pool);
+		return search.search(source);
+	}
+
+	private ShortestPathResult<V> search(int source) {
+		cost.set(source, 0);
+		file(source, 0);
+
+		while (!pending.isEmpty()) {
+			int slot = pending.peekMin();
+			int current = pending.priorityOf(slot);
+
+			// Light edges, in rounds until the bucket stays empty.  A
+			// round can only file vertices in this bucket or later ones,
+			// so this slot stays at the top of the heap.
+			IntList removed = new IntList();
+			while (buckets[slot] != null) {
+				int[] batch = live(buckets[slot], current);
+				buckets[slot] = null;
+				pending.removeMin();
+				removed.addAll(batch);
+				relax(batch, true);
+			}
+
+			// Heavy edges, once for everything that left the bucket
+			relax(removed.toArray(), false);
+		}
+
+		int[] finalCost = new int[n];
+		for (int v = 0; v < n; v++) {
+			finalCost[v] = cost.get(v);
+		}
+		return new ShortestPathResult<>(graph, source, finalCost, predecessors(source, finalCost));
+	}
+
+	/* The entries of a bucket whose vertex still belongs to it, without
+	 * duplicates.  Clearing bucketOf lets a later light round file the
+	 * vertex in this bucket again.
+	 */
+	private int[] live(IntList bucket, int index) {
+		IntList result = new IntList();
+		for (int i = 0; i < bucket.size; i++) {
+			int v = bucket.items[i];
+			if (bucketOf.get(v) == index) {
+				bucketOf.set(v, -1);
+				result.add(v);
+			}
+		}
+		return result.toArray();
+	}
+
+	/* Relaxes the light (or heavy) edges of the given vertices in
+	 * parallel.  Each task collects the vertices whose cost it lowered,
+	 * and they are filed into buckets afterwards on this thread.
+	 */
+	private void relax(int[] vertices, boolean light) {
+		int chunks = (vertices.length + CHUNK - 1) / CHUNK;
+		IntList[] improved = new IntList[chunks];
+		pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+			IntList local = new IntList();
+			int last = Math.min(vertices.length, (c + 1) * CHUNK);
+			for (int f = c * CHUNK; f < last; f++) {
+				int u = vertices[f];
+				int base = cost.get(u);
+				int degree = graph.degree(u);
+				for (int i = 0; i < degree; i++) {
+					int w = graph.weight(u, i);
+					if ((w <= delta) == light && lowerCost(graph.target(u, i), base + w)) {
+						local.add(graph.target(u, i));
+					}
+				}
+			}
+			improved[c] = local;
+		})).join();
+
+		for (IntList list : improved) {
+			for (int i = 0; i < list.size; i++) {
+				int v = list.items[i];
+				file(v, cost.get(v) / delta);
+			}
+		}
+	}
+
+	/* Atomic cost[v] = min(cost[v], newCost); true if it was lowered */
+	private boolean lowerCost(int v, int newCost) {
+		while (true) {
+			int old = cost.get(v);
+			if (newCost >= old) {
+				return false;
+			}
+			if (cost.compareAndSet(v, old, newCost)) {
+				return true;
+			}
+		}
+	}
+
+	private void file(int v, int index) {
+		if (bucketOf.get(v) == index) {
+			return;
+		}
+		bucketOf.set(v, index);
+		int slot = index % buckets.length;
+		if (buckets[slot] == null) {
+			buckets[slot] = new IntList();
+			pending.insertOrDecrease(slot, index);
+		}
+		buckets[slot].add(v);
+	}
+
+	/* For every reached vertex other than the source, an in-neighbour u
+	 * with cost[u] + weight(u, v) == cost[v].  Zero-weight edges could
+	 * make such choices form a cycle, so vertices whose cost is reached
+	 * through a zero-weight edge take their predecessor from a
+	 * sequential pass in cost order instead.
+	 */
+	private int[] predecessors(int source, int[] finalCost) {
+		int[] pred = new int[n];
+		Arrays.fill(pred, -1);
+		pool.submit(() -> IntStream.range(0, n).parallel().forEach(v -> {
+			if (v == source || finalCost[v] == Integer.MAX_VALUE) {
+				return;
+			}
+			int degree = reverse.degree(v);
+			for (int i = 0; i < degree; i++) {
+				int u = reverse.target(v, i);
+				int w = reverse.weight(v, i);
+				if (w > 0 && finalCost[u] != Integer.MAX_VALUE && finalCost[u] + w == finalCost[v]) {
+					pred[v] = u;
+					return;
+				}
+			}
+		})).join();
+
+		// Whatever is left is only reachable at its lowest cost through
+		// zero-weight edges.  Spread out from vertices that already have
+		// a predecessor (or are the source) along such edges.
+		IntList ready = new IntList();
+		for (int v = 0; v < n; v++) {
+			if (finalCost[v] != Integer.MAX_VALUE && (v == source || pred[v] >= 0)) {
+				ready.add(v);
+			}
+		}
+		for (int i = 0; i < ready.size; i++) {
+			int u = ready.items[i];
+			int degree = graph.degree(u);
+			for (int k = 0; k < degree; k++) {
+				int v = graph.target(u, k);
+				if (graph.weight(u, k) == 0 && v != source && pred[v] < 0 && finalCost[v] == finalCost[u]) {
+					pred[v] = u;
+					ready.add(v);
+				}
+			}
+		}
+		return pred;
+	}
+
+	/* A growable list of ints */
+	private static final class IntList {
+		int[] items = new int[8];
+		int size;
+
+		void add(int value) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, 2 * size);
+			}
+			items[size++] = value;
+		}
+
+		void addAll(int[] values) {
+			for (int value : values) {
+				add(value);
+			}
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(items, size);
+		}
+	}
+}
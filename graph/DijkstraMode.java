@@ -0,0 +1,25 @@
+package graph;
+
+/**
+ * <P>Selects how much work DoDijsktra does.</P>
+ */
+public enum DijkstraMode {
+
+	/** Finish every vertex reachable from the start vertex.  This is
+	 * what DoDijsktra(start, end) does.
+	 */
+	ALL_VERTICES,
+
+	/** Stop as soon as the end vertex has been added to the finished
+	 * set.  The reported path is the same as in ALL_VERTICES mode, but
+	 * vertices further from the start than the end are never finished.
+	 */
+	POINT_TO_POINT,
+
+	/** Search forward from the start vertex and backward from the end
+	 * vertex (along reversed edges) at the same time, stopping when the
+	 * two searches meet.  Only the vertices finished by the forward
+	 * search are reported to the observers.
+	 */
+	BIDIRECTIONAL
+}
@@ -0,0 +1,87 @@
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * <P>A growable array of ints kept outside the Java heap, in direct
+ * ByteBuffers.  A single buffer holds at most 2GB, so the array is
+ * split into chunks of 2^20 ints (4MB) and indexed by a long.  An
+ * array smaller than that is kept in one buffer that doubles as it
+ * grows, so a small array does not take a whole chunk.  The garbage
+ * collector sees only the chunk objects, never their contents.</P>
+ */
+final class DirectIntArray {
+
+	private static final int CHUNK_SHIFT = 20;
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+	private static final int MIN_CAPACITY = 1024;
+
+	// chunks[0] may be smaller than a chunk while it is the only one
+	private IntBuffer[] chunks;
+	private int chunkCount;
+
+	/** Creates an array with room for at least the given number of
+	 * ints, all 0.
+	 *
+	 * @param capacity number of ints to make room for
+	 */
+	DirectIntArray(long capacity) {
+		chunks = new IntBuffer[4];
+		ensureCapacity(capacity);
+	}
+
+	/** Returns the number of ints the array can hold without growing. */
+	long capacity() {
+		if (chunkCount == 1) {
+			return chunks[0].capacity();
+		}
+		return (long) chunkCount << CHUNK_SHIFT;
+	}
+
+	/** Grows the array until it can hold the given number of ints.  The
+	 * ints already stored keep their values.
+	 */
+	void ensureCapacity(long capacity) {
+		if (capacity <= capacity() && chunkCount > 0) {
+			return;
+		}
+		if (chunkCount <= 1) {
+			// Double the first buffer, up to a whole chunk
+			int size = MIN_CAPACITY;
+			while (size < capacity && size < 1 << CHUNK_SHIFT) {
+				size *= 2;
+			}
+			if (chunkCount == 0 || chunks[0].capacity() < size) {
+				IntBuffer grown = allocate(size);
+				if (chunkCount == 1) {
+					grown.put(chunks[0]);
+					grown.clear();
+				}
+				chunks[0] = grown;
+				chunkCount = 1;
+			}
+		}
+		int needed = (int) ((capacity + CHUNK_MASK) >>> CHUNK_SHIFT);
+		if (needed > chunks.length) {
+			chunks = Arrays.copyOf(chunks, Math.max(needed, 2 * chunks.length));
+		}
+		while (chunkCount < needed) {
+			chunks[chunkCount++] = allocate(1 << CHUNK_SHIFT);
+		}
+	}
+
+	private static IntBuffer allocate(int ints) {
+		return ByteBuffer.allocateDirect(4 * ints).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	int get(long index) {
+		return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK);
+	}
+
+	void set(long index, int value) {
+		chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value);
+	}
+}
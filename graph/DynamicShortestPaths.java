@@ -0,0 +1,273 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <P>The lowest cost paths from one source vertex of a WeightedGraph to
+ * every other vertex, kept up to date as the graph changes.  Instead of
+ * searching the whole graph again after each change, the graph tells
+ * this object about the edge that changed and only the vertices whose
+ * costs can be affected are looked at again, in the manner of
+ * Ramalingam and Reps.</P>
+ *
+ * <P>When an edge is added or made cheaper, the vertices it improves
+ * are found with a Dijkstra search that starts at the edge and stops
+ * wherever nothing improves.  When an edge on the tree of lowest cost
+ * paths is removed or made dearer, the vertices below it in the tree
+ * are checked in order of cost; one that still has an equally cheap
+ * way in from a vertex that is not affected keeps its cost, and the
+ * rest are given new costs by a Dijkstra search from the vertices
+ * around them.  Either way the work grows with the number of vertices
+ * whose costs change, and with their edges, rather than with the size
+ * of the graph.  (Vertices reached over an edge of weight 0 are
+ * sometimes looked at again even though their cost stays the same.)</P>
+ *
+ * <P>Get one from WeightedGraph.trackShortestPaths, and close it when it
+ * is no longer needed so that the graph stops updating it.</P>
+ *
+ * @param <V>
+ */
+public final class DynamicShortestPaths<V> implements AutoCloseable {
+
+	private final WeightedGraph<V> graph;
+	private final int source;
+
+	// Integer.MAX_VALUE marks an unreachable vertex; -1 for no predecessor
+	private int[] cost;
+	private int[] pred;
+
+	// Scratch space for the repairs.  affected[v] is only true while a
+	// repair is running, and changed holds the vertices it marked.
+	private IndexedMinHeap heap;
+	private boolean[] affected;
+	private int[] changed;
+	private int changedCount;
+
+	private int lastRepairSize;
+	private boolean closed;
+
+	DynamicShortestPaths(WeightedGraph<V> graph, int source) {
+		this.graph = graph;
+		this.source = source;
+		int n = graph.vertexCount();
+		cost = new int[n];
+		pred = new int[n];
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		Arrays.fill(pred, -1);
+		heap = new IndexedMinHeap(n);
+		affected = new boolean[n];
+		changed = new int[16];
+
+		cost[source] = 0;
+		heap.insertOrDecrease(source, 0);
+		lastRepairSize = propagate();
+	}
+
+	/** Returns the vertex the paths start from.
+	 * @return the source vertex
+	 */
+	public V getSource() {
+		return graph.vertexAt(source);
+	}
+
+	/** Returns the cost of the lowest cost path from the source to
+	 * a vertex, as the graph is now.
+	 *
+	 * @param vertex the destination
+	 * @return the cost, or null if the vertex cannot be reached
+	 * @throws IllegalArgumentException if the vertex is not in the graph
+	 */
+	public Integer costTo(V vertex) {
+		int v = graph.requireIndex(vertex);
+		if (v >= cost.length || cost[v] == Integer.MAX_VALUE) {
+			return null;
+		}
+		return cost[v];
+	}
+
+	/** Returns the vertex just before the given one on a lowest cost
+	 * path from the source, as the graph is now.
+	 *
+	 * @param vertex the destination
+	 * @return its predecessor, or null for the source itself and for
+	 * vertices that cannot be reached
+	 * @throws IllegalArgumentException if the vertex is not in the graph
+	 */
+	public V predecessorOf(V vertex) {
+		int v = graph.requireIndex(vertex);
+		if (v >= pred.length || pred[v] < 0) {
+			return null;
+		}
+		return graph.vertexAt(pred[v]);
+	}
+
+	/** Returns a lowest cost path from the source to a vertex, as the
+	 * graph is now.
+	 *
+	 * @param vertex the destination
+	 * @return the vertices of the path, from the source to the
+	 * destination; empty if the destination cannot be reached
+	 * @throws IllegalArgumentException if the vertex is not in the graph
+	 */
+	public List<V> pathTo(V vertex) {
+		int v = graph.requireIndex(vertex);
+		ensureCapacity();
+		return GraphSearch.path(graph, pred, cost, v);
+	}
+
+	/** Returns the number of vertices whose cost was looked at again by
+	 * the last change to the graph (or by the first search, before any
+	 * change).
+	 * @return size of the last repair
+	 */
+	public int lastRepairSize() {
+		return lastRepairSize;
+	}
+
+	/** Stops the graph from updating these paths.  Nothing should be
+	 * asked of this object afterwards.
+	 */
+	public void close() {
+		if (!closed) {
+			closed = true;
+			graph.untrack(this);
+		}
+	}
+
+	/* Called by the graph after an edge from f to t has been added or
+	 * its weight lowered to w.
+	 */
+	void edgeImproved(int f, int t, int w) {
+		ensureCapacity();
+		lastRepairSize = 0;
+		if (cost[f] != Integer.MAX_VALUE && cost[f] + w < cost[t]) {
+			cost[t] = cost[f] + w;
+			pred[t] = f;
+			heap.insertOrDecrease(t, cost[t]);
+			lastRepairSize = propagate();
+		}
+	}
+
+	/* Called by the graph after an edge from f to t has been removed or
+	 * its weight raised.  Only the paths through t can get dearer, and
+	 * only if t was reached from f.
+	 */
+	void edgeWorsened(int f, int t) {
+		ensureCapacity();
+		lastRepairSize = 0;
+		if (pred[t] != f) {
+			return;
+		}
+
+		// Find the vertices that lose their cost, in order of their old
+		// cost, so that whether a vertex still has an equally cheap way
+		// in is decided after every vertex it could come in from.
+		changedCount = 0;
+		heap.insertOrDecrease(t, cost[t]);
+		while (!heap.isEmpty()) {
+			int v = heap.removeMin();
+			int support = support(v);
+			if (support >= 0) {
+				pred[v] = support;
+				continue;
+			}
+			affected[v] = true;
+			mark(v);
+			int degree = graph.degree(v);
+			for (int i = 0; i < degree; i++) {
+				int child = graph.target(v, i);
+				if (pred[child] == v && !affected[child]) {
+					heap.insertOrDecrease(child, cost[child]);
+				}
+			}
+		}
+
+		// Give each affected vertex the best cost it can get straight
+		// from an unaffected one, then let the costs settle
+		for (int k = 0; k < changedCount; k++) {
+			cost[changed[k]] = Integer.MAX_VALUE;
+			pred[changed[k]] = -1;
+		}
+		for (int k = 0; k < changedCount; k++) {
+			int v = changed[k];
+			int inDegree = graph.inDegree(v);
+			for (int i = 0; i < inDegree; i++) {
+				int p = graph.source(v, i);
+				if (!affected[p] && cost[p] != Integer.MAX_VALUE
+						&& cost[p] + graph.sourceWeight(v, i) < cost[v]) {
+					cost[v] = cost[p] + graph.sourceWeight(v, i);
+					pred[v] = p;
+				}
+			}
+			if (cost[v] != Integer.MAX_VALUE) {
+				heap.insertOrDecrease(v, cost[v]);
+			}
+		}
+		for (int k = 0; k < changedCount; k++) {
+			affected[changed[k]] = false;
+		}
+		lastRepairSize = changedCount;
+		propagate();
+	}
+
+	/* An unaffected vertex that v can still be reached from at its
+	 * current cost, or -1.  Edges of weight 0 are not trusted, since the
+	 * vertex at the other end may not have been checked yet.
+	 */
+	private int support(int v) {
+		int inDegree = graph.inDegree(v);
+		for (int i = 0; i < inDegree; i++) {
+			int p = graph.source(v, i);
+			int w = graph.sourceWeight(v, i);
+			if (w > 0 && !affected[p] && cost[p] != Integer.MAX_VALUE && cost[p] + w == cost[v]) {
+				return p;
+			}
+		}
+		return -1;
+	}
+
+	/* Dijkstra's algorithm from the vertices already in the heap,
+	 * returning the number of vertices settled
+	 */
+	private int propagate() {
+		int settled = 0;
+		while (!heap.isEmpty()) {
+			int k = heap.removeMin();
+			settled++;
+			int degree = graph.degree(k);
+			for (int i = 0; i < degree; i++) {
+				int j = graph.target(k, i);
+				int newCost = cost[k] + graph.weight(k, i);
+				if (newCost < cost[j]) {
+					cost[j] = newCost;
+					pred[j] = k;
+					heap.insertOrDecrease(j, newCost);
+				}
+			}
+		}
+		return settled;
+	}
+
+	private void mark(int v) {
+		if (changedCount == changed.length) {
+			changed = Arrays.copyOf(changed, 2 * changedCount);
+		}
+		changed[changedCount++] = v;
+	}
+
+	/* Vertices added since the last change start out unreachable */
+	private void ensureCapacity() {
+		int n = graph.vertexCount();
+		if (n > cost.length) {
+			int capacity = Math.max(n, 2 * cost.length);
+			int old = cost.length;
+			cost = Arrays.copyOf(cost, capacity);
+			pred = Arrays.copyOf(pred, capacity);
+			Arrays.fill(cost, old, capacity, Integer.MAX_VALUE);
+			Arrays.fill(pred, old, capacity, -1);
+			affected = Arrays.copyOf(affected, capacity);
+			heap = new IndexedMinHeap(capacity);
+		}
+	}
+}
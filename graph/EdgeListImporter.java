@@ -0,0 +1,496 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <P>Reads graphs from the standard edge-list file formats into a
+ * WeightedGraph&lt;String&gt;, whose vertices are the vertex numbers
+ * used in the file, written in decimal.</P>
+ *
+ * <P>DIMACS shortest path files (".gr") have comment lines starting
+ * with "c", one problem line "p sp n m" giving the number of vertices
+ * and arcs, and one line "a u v w" per arc from u to v of weight w.
+ * Vertices are numbered 1 to n and are added to the graph in that
+ * order.  SNAP edge lists have comment lines starting with "#" and one
+ * line "u v" per edge, optionally followed by a weight (1 if there is
+ * none).  Vertices may have any non-negative numbers and are added in
+ * the order they first appear.  In both formats the numbers may be
+ * separated by spaces or tabs.</P>
+ *
+ * <P>The file is read through FileChannel.map in chunks of whole lines,
+ * and the chunks are parsed in parallel, straight from the mapped bytes
+ * into int arrays, with no String per number.  The edges of each chunk
+ * then go to a WeightedGraph.Builder in file order, so the graph is the
+ * same however many threads there are.  Only a few chunks are held at
+ * once, so files of many gigabytes can be read.</P>
+ */
+public final class EdgeListImporter {
+
+	/** Bytes per chunk, unless another size is given.  A chunk also
+	 * runs on to the end of its last line. */
+	public static final int CHUNK_BYTES = 32 << 20;
+
+	// The most edges the builder makes room for before it has seen them;
+	// beyond this its arrays grow as the edges arrive
+	private static final int EDGE_HINT_LIMIT = 1 << 24;
+
+	// The shortest possible arc line, "a 1 2 3"
+	private static final int MIN_ARC_BYTES = 7;
+
+	private EdgeListImporter() {
+	}
+
+	/** Reads a DIMACS shortest path file, parsing on the common
+	 * ForkJoinPool.
+	 *
+	 * @param file the file to read
+	 * @return the graph
+	 * @throws IOException if the file cannot be read or is not in the
+	 * DIMACS format
+	 */
+	public static WeightedGraph<String> readDimacs(Path file) throws IOException {
+		return readDimacs(file, ForkJoinPool.commonPool(), null);
+	}
+
+	/** Reads a DIMACS shortest path file, parsing on the given pool.
+	 *
+	 * @param file the file to read
+	 * @param pool the threads to parse on
+	 * @param progress told about the progress of the import, or null
+	 * @return the graph
+	 * @throws IOException if the file cannot be read or is not in the
+	 * DIMACS format
+	 */
+	public static WeightedGraph<String> readDimacs(Path file, ForkJoinPool pool, ImportProgress progress)
+			throws IOException {
+		return readDimacs(file, pool, progress, CHUNK_BYTES);
+	}
+
+	/** Reads a DIMACS shortest path file, parsing on the given pool in
+	 * chunks of the given size.  Smaller chunks hold less of the file in
+	 * memory at once, but make more tasks.
+	 *
+	 * @param file the file to read
+	 * @param pool the threads to parse on
+	 * @param progress told about the progress of the import, or null
+	 * @param chunkBytes bytes per chunk, at least 1
+	 * @return the graph
+	 * @throws IOException if the file cannot be read or is not in the
+	 * DIMACS format
+	 * @throws IllegalArgumentException if chunkBytes is less than 1
+	 */
+	public static WeightedGraph<String> readDimacs(Path file, ForkJoinPool pool, ImportProgress progress,
+			int chunkBytes) throws IOException {
+		if (chunkBytes < 1) {
+			throw new IllegalArgumentException();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long[] problem = readProblemLine(channel);
+			int n = (int) problem[0];
+			int m = (int) problem[1];
+			long dataStart = problem[2];
+			if (n < 0 || m < 0 || m > (channel.size() - dataStart) / MIN_ARC_BYTES) {
+				throw new IOException("problem line counts " + n + " vertices and " + m
+						+ " arcs, which the file cannot hold");
+			}
+			WeightedGraph.Builder<String> builder = new WeightedGraph.Builder<>(n, Math.min(m, EDGE_HINT_LIMIT));
+			for (int v = 1; v <= n; v++) {
+				builder.addVertex(Integer.toString(v));
+			}
+			read(channel, dataStart, true, pool, progress, chunkBytes, batch -> {
+				for (int i = 0; i < batch.count; i++) {
+					if (batch.from[i] < 1 || batch.from[i] > n || batch.to[i] < 1 || batch.to[i] > n) {
+						throw new IOException("arc to a vertex outside 1.." + n);
+					}
+					batch.from[i]--;
+					batch.to[i]--;
+				}
+				builder.addEdges(batch.from, batch.to, batch.weights, batch.count);
+			});
+			return builder.build();
+		}
+	}
+
+	/** Reads a SNAP edge list, parsing on the common ForkJoinPool.
+	 *
+	 * @param file the file to read
+	 * @return the graph
+	 * @throws IOException if the file cannot be read or is not an edge
+	 * list
+	 */
+	public static WeightedGraph<String> readSnap(Path file) throws IOException {
+		return readSnap(file, ForkJoinPool.commonPool(), null);
+	}
+
+	/** Reads a SNAP edge list, parsing on the given pool.
+	 *
+	 * @param file the file to read
+	 * @param pool the threads to parse on
+	 * @param progress told about the progress of the import, or null
+	 * @return the graph
+	 * @throws IOException if the file cannot be read or is not an edge
+	 * list
+	 */
+	public static WeightedGraph<String> readSnap(Path file, ForkJoinPool pool, ImportProgress progress)
+			throws IOException {
+		return readSnap(file, pool, progress, CHUNK_BYTES);
+	}
+
+	/** Reads a SNAP edge list, parsing on the given pool in chunks of
+	 * the given size.  See readDimacs(Path, ForkJoinPool, ImportProgress,
+	 * int).
+	 *
+	 * @param file the file to read
+	 * @param pool the threads to parse on
+	 * @param progress told about the progress of the import, or null
+	 * @param chunkBytes bytes per chunk, at least 1
+	 * @return the graph
+	 * @throws IOException if the file cannot be read or is not an edge
+	 * list
+	 * @throws IllegalArgumentException if chunkBytes is less than 1
+	 */
+	public static WeightedGraph<String> readSnap(Path file, ForkJoinPool pool, ImportProgress progress,
+			int chunkBytes) throws IOException {
+		if (chunkBytes < 1) {
+			throw new IllegalArgumentException();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WeightedGraph.Builder<String> builder = new WeightedGraph.Builder<>(16,
+					(int) Math.min(EDGE_HINT_LIMIT, channel.size() / 16));
+			IdTable ids = new IdTable();
+			read(channel, 0, false, pool, progress, chunkBytes, batch -> {
+				for (int i = 0; i < batch.count; i++) {
+					batch.from[i] = ids.index(batch.from[i], builder);
+					batch.to[i] = ids.index(batch.to[i], builder);
+				}
+				builder.addEdges(batch.from, batch.to, batch.weights, batch.count);
+			});
+			return builder.build();
+		}
+	}
+
+	/* The edges parsed from one chunk */
+	private static final class Batch {
+		int[] from = new int[1024];
+		int[] to = new int[1024];
+		int[] weights = new int[1024];
+		int count;
+
+		void add(int f, int t, int w) {
+			if (count == from.length) {
+				from = Arrays.copyOf(from, 2 * count);
+				to = Arrays.copyOf(to, 2 * count);
+				weights = Arrays.copyOf(weights, 2 * count);
+			}
+			from[count] = f;
+			to[count] = t;
+			weights[count++] = w;
+		}
+	}
+
+	private interface BatchSink {
+		void accept(Batch batch) throws IOException;
+	}
+
+	/* Parses the file from "from" on, a wave of chunks at a time, one
+	 * chunk per thread, and hands the batches to the sink in file order.
+	 */
+	private static void read(FileChannel channel, long from, boolean dimacs, ForkJoinPool pool,
+			ImportProgress progress, int chunkBytes, BatchSink sink) throws IOException {
+		long size = channel.size();
+		int wave = Math.max(1, pool.getParallelism());
+		long start = from;
+		while (start < size) {
+			List<Callable<Batch>> tasks = new ArrayList<>();
+			List<Long> ends = new ArrayList<>();
+			while (start < size && tasks.size() < wave) {
+				long end = lineEnd(channel, Math.min(size, start + chunkBytes));
+				ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+				long chunkStart = start;
+				tasks.add(() -> parse(bytes, chunkStart, dimacs));
+				ends.add(end);
+				start = end;
+			}
+			List<Future<Batch>> batches = pool.invokeAll(tasks);
+			for (int k = 0; k < batches.size(); k++) {
+				try {
+					sink.accept(batches.get(k).get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				} catch (ExecutionException e) {
+					// The pool wraps a task's IOException in RuntimeExceptions
+					for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+						if (cause instanceof IOException) {
+							throw (IOException) cause;
+						}
+					}
+					throw new IllegalStateException(e.getCause());
+				}
+				if (progress != null) {
+					progress.notifyProgress(ends.get(k), size);
+				}
+			}
+		}
+	}
+
+	/* The position just after the first newline at or after "from", or
+	 * the end of the file
+	 */
+	private static long lineEnd(FileChannel channel, long from) throws IOException {
+		long size = channel.size();
+		ByteBuffer window = ByteBuffer.allocate(4096);
+		for (long position = from; position < size; position += window.limit()) {
+			window.clear();
+			channel.read(window, position);
+			window.flip();
+			for (int i = 0; i < window.limit(); i++) {
+				if (window.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return size;
+	}
+
+	/* Parses the arc or edge lines of a chunk of whole lines */
+	private static Batch parse(ByteBuffer bytes, long chunkStart, boolean dimacs) throws IOException {
+		Batch batch = new Batch();
+		Parser parser = new Parser(bytes, chunkStart);
+		while (parser.skipBlanks()) {
+			byte first = bytes.get(parser.position);
+			if (dimacs ? first == 'c' : first == '#' || first == '%') {
+				parser.skipLine();
+			} else if (dimacs) {
+				// The problem line was read before the chunks, so another
+				// one here is out of place
+				if (first != 'a') {
+					throw parser.malformed();
+				}
+				parser.position++;
+				int u = parser.nextInt();
+				int v = parser.nextInt();
+				int w = parser.nextInt();
+				if (w < 0) {
+					throw parser.malformed();
+				}
+				batch.add(u, v, w);
+				parser.endLine();
+			} else {
+				int u = parser.nextInt();
+				int v = parser.nextInt();
+				int w = parser.atEndOfLine() ? 1 : parser.nextInt();
+				if (w < 0) {
+					throw parser.malformed();
+				}
+				batch.add(u, v, w);
+				parser.endLine();
+			}
+		}
+		return batch;
+	}
+
+	/* Reads the comment lines at the start of a DIMACS file and the
+	 * problem line after them, through one heap buffer, and returns the
+	 * vertex and arc counts and the position just after the problem line
+	 */
+	private static long[] readProblemLine(FileChannel channel) throws IOException {
+		long size = channel.size();
+		ByteBuffer window = ByteBuffer.allocate(64 << 10);
+		long position = 0;
+		while (true) {
+			window.clear();
+			if (position >= size || channel.read(window, position) <= 0) {
+				throw new IOException("no problem line");
+			}
+			window.flip();
+			Parser parser = new Parser(window, position);
+			if (!parser.skipBlanks()) {
+				position += window.limit();
+				continue;
+			}
+			byte first = window.get(parser.position);
+			if (first == 'c') {
+				position = lineEnd(channel, position + parser.position);
+				continue;
+			}
+			if (first != 'p') {
+				throw new IOException("no problem line before byte " + (position + parser.position));
+			}
+			if (parser.position > 0) {
+				// Read again from the start of the line, so that as much
+				// of it as possible is in the window
+				position += parser.position;
+				continue;
+			}
+			if (position + window.limit() < size && !containsNewline(window)) {
+				throw parser.malformed();
+			}
+			parser.position++;
+			parser.skipSpaces();
+			if (parser.position + 2 > window.limit() || window.get(parser.position) != 's'
+					|| window.get(parser.position + 1) != 'p') {
+				throw parser.malformed();
+			}
+			parser.position += 2;
+			long[] problem = { parser.nextInt(), parser.nextInt(), 0 };
+			parser.endLine();
+			problem[2] = position + parser.position;
+			return problem;
+		}
+	}
+
+	private static boolean containsNewline(ByteBuffer window) {
+		for (int i = 0; i < window.limit(); i++) {
+			if (window.get(i) == '\n') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/* Reads numbers from a buffer of whole lines, straight from the bytes */
+	private static final class Parser {
+		private final ByteBuffer bytes;
+		private final long offset;
+		int position;
+
+		Parser(ByteBuffer bytes, long offset) {
+			this.bytes = bytes;
+			this.offset = offset;
+		}
+
+		/* Moves to the next character that is not white space; false at
+		 * the end of the buffer
+		 */
+		boolean skipBlanks() {
+			while (position < bytes.limit()) {
+				byte b = bytes.get(position);
+				if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+					return true;
+				}
+				position++;
+			}
+			return false;
+		}
+
+		void skipSpaces() {
+			while (position < bytes.limit() && (bytes.get(position) == ' ' || bytes.get(position) == '\t')) {
+				position++;
+			}
+		}
+
+		void skipLine() {
+			while (position < bytes.limit() && bytes.get(position++) != '\n') {
+			}
+		}
+
+		boolean atEndOfLine() {
+			skipSpaces();
+			return position == bytes.limit() || bytes.get(position) == '\r' || bytes.get(position) == '\n';
+		}
+
+		void endLine() throws IOException {
+			if (!atEndOfLine()) {
+				throw malformed();
+			}
+			skipLine();
+		}
+
+		int nextInt() throws IOException {
+			skipSpaces();
+			boolean negative = position < bytes.limit() && bytes.get(position) == '-';
+			if (negative) {
+				position++;
+			}
+			int start = position;
+			long value = 0;
+			while (position < bytes.limit()) {
+				int digit = bytes.get(position) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				value = 10 * value + digit;
+				if (value > Integer.MAX_VALUE) {
+					throw malformed();
+				}
+				position++;
+			}
+			if (position == start) {
+				throw malformed();
+			}
+			return (int) (negative ? -value : value);
+		}
+
+		IOException malformed() {
+			return new IOException("malformed line near byte " + (offset + position));
+		}
+	}
+
+	/* Gives SNAP vertex numbers dense ids in the order they are first
+	 * seen, adding a vertex to the builder for each new one.  An
+	 * open-addressing table of ints, so that no Integer is made per
+	 * number.
+	 */
+	private static final class IdTable {
+		private int[] keys = new int[1024];
+		private int[] values = new int[1024];
+		private int size;
+
+		int index(int number, WeightedGraph.Builder<String> builder) throws IOException {
+			if (number < 0) {
+				throw new IOException("negative vertex number " + number);
+			}
+			int mask = keys.length - 1;
+			int slot = hash(number) & mask;
+			while (values[slot] != 0) {
+				if (keys[slot] == number) {
+					return values[slot] - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			int id = size++;
+			keys[slot] = number;
+			values[slot] = id + 1;
+			builder.addVertex(Integer.toString(number));
+			if (2 * size > keys.length) {
+				grow();
+			}
+			return id;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new int[2 * oldKeys.length];
+			values = new int[2 * oldKeys.length];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] != 0) {
+					int slot = hash(oldKeys[i]) & mask;
+					while (values[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+
+		private static int hash(int number) {
+			int h = number * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+}
@@ -0,0 +1,457 @@
+package graph;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <P>The search algorithms shared by all of the graphs in this
+ * package (DFS, BFS and Dijkstra).  They run on an IndexedGraph, so
+ * all of their bookkeeping is done with vertex ids in primitive
+ * arrays.  Vertex objects are only fetched to pass them to the
+ * observers.</P>
+ *
+ * <P>See WeightedGraph.DoBFS, DoDFS and DoDijsktra for the exact
+ * observer notifications each algorithm makes.</P>
+ */
+final class GraphSearch {
+
+	// Graphs whose edge weights are all at most this use a BucketQueue
+	// (Dial's algorithm) instead of a heap for Dijkstra
+	static final int BUCKET_QUEUE_MAX_WEIGHT = 64;
+
+	private GraphSearch() {
+	}
+
+	/** Returns the fastest empty queue that suits the graph's weights. */
+	static VertexQueue newQueue(IndexedGraph<?> graph) {
+		if (graph.maxWeight() <= BUCKET_QUEUE_MAX_WEIGHT) {
+			return new BucketQueue(graph.vertexCount(), graph.maxWeight());
+		}
+		return new IndexedMinHeap(graph.vertexCount());
+	}
+
+	static <V> void breadthFirst(IndexedGraph<V> graph, int start, int end,
+			ObserverList<V> observers) {
+		for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.BEGIN))
+		{
+			observer.notifyBFSHasBegun();
+		}
+
+		boolean visits = observers.wants(SearchEvent.VISIT);
+
+		Traversal traversal = graph.traversal();
+		traversal.begin(graph.vertexCount());
+
+		// A vertex is marked when it is queued, so every vertex is
+		// queued at most once and the buffer never needs to grow
+		int[] queue = traversal.buffer(graph.vertexCount());
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = start;
+		traversal.mark(start);
+
+		while (head < tail) {
+			int current = queue[head++];
+
+			if (current == end) {
+				for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.END))
+				{
+					observer.notifySearchIsOver();
+				}
+				return;
+			}
+
+			if (visits) {
+				V vertex = graph.vertexAt(current);
+				for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.VISIT))
+				{
+					observer.notifyVisit(vertex);
+				}
+			}
+
+			int degree = graph.degree(current);
+			for (int i = 0; i < degree; i++) {
+				int next = graph.target(current, i);
+				if (traversal.mark(next)) {
+					queue[tail++] = next;
+				}
+			}
+		}
+	}
+
+	static <V> void depthFirst(IndexedGraph<V> graph, int start, int end,
+			ObserverList<V> observers) {
+		for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.BEGIN))
+		{
+			observer.notifyDFSHasBegun();
+		}
+
+		boolean visits = observers.wants(SearchEvent.VISIT);
+
+		Traversal traversal = graph.traversal();
+		traversal.begin(graph.vertexCount());
+
+		// A vertex is marked when it is visited (popped), as the visit
+		// order depends on that.  Each visited vertex pushes each of its
+		// edges at most once, so the stack grows by at most its degree.
+		int[] stack = traversal.buffer(16);
+		int top = 0;
+		stack[top++] = start;
+
+		while (top > 0) {
+			int current = stack[--top];
+
+			if (current == end) {
+				for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.END))
+				{
+					observer.notifySearchIsOver();
+				}
+				return;
+			}
+
+			if (traversal.mark(current)) {
+				if (visits) {
+					V vertex = graph.vertexAt(current);
+					for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.VISIT))
+					{
+						observer.notifyVisit(vertex);
+					}
+				}
+
+				int degree = graph.degree(current);
+				stack = traversal.buffer(top + degree);
+				for (int i = 0; i < degree; i++) {
+					int next = graph.target(current, i);
+					if (!traversal.isMarked(next)) {
+						stack[top++] = next;
+					}
+				}
+			}
+		}
+	}
+
+	/** Runs Dijkstra's algorithm from start.  If stopAtEnd is true the
+	 * search ends as soon as end is finished, otherwise it finishes
+	 * every reachable vertex.
+	 */
+	static <V> void dijkstra(IndexedGraph<V> graph, int start, int end, boolean stopAtEnd,
+			ObserverList<V> observers) {
+		for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.BEGIN))
+		{
+			observer.notifyDijkstraHasBegun();
+		}
+
+		boolean finishes = observers.wants(SearchEvent.VERTEX_FINISHED);
+
+		int n = graph.vertexCount();
+		int[] cost = new int[n];
+		int[] pred = new int[n];
+		boolean[] finished = new boolean[n];
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		Arrays.fill(pred, -1);
+
+		VertexQueue heap = newQueue(graph);
+		cost[start] = 0;
+		heap.insertOrDecrease(start, 0);
+
+		// Vertices come off the heap in order of increasing cost, which
+		// is exactly the order they join the finished set.  Vertices that
+		// cannot be reached from start never enter the heap.
+		while (!heap.isEmpty()) {
+			int k = heap.removeMin();
+			finished[k] = true;
+			if (finishes) {
+				V vertex = graph.vertexAt(k);
+				for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.VERTEX_FINISHED))
+				{
+					observer.notifyDijkstraVertexFinished(vertex, cost[k]);
+				}
+			}
+			if (stopAtEnd && k == end) {
+				break;
+			}
+
+			int degree = graph.degree(k);
+			for (int i = 0; i < degree; i++) {
+				int j = graph.target(k, i);
+				int newCost = cost[k] + graph.weight(k, i);
+				if (!finished[j] && newCost < cost[j]) {
+					cost[j] = newCost;
+					pred[j] = k;
+					heap.insertOrDecrease(j, newCost);
+				}
+			}
+		}
+
+		if (observers.wants(SearchEvent.END)) {
+			List<V> leastCostPath = path(graph, pred, cost, end);
+			for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.END))
+			{
+				observer.notifyDijkstraIsOver(leastCostPath);
+			}
+		}
+	}
+
+	/**
+	 * <P>Bidirectional Dijkstra.  The forward search runs on graph from
+	 * start, the backward search runs on reverse (the same vertices with
+	 * every edge turned around) from end.  Each step advances whichever
+	 * search has the smaller next cost.</P>
+	 *
+	 * <P>Whenever an edge is relaxed into a vertex the other search has
+	 * reached, the path through that vertex is a candidate.  Once the
+	 * two smallest costs waiting in the heaps add up to at least the
+	 * best candidate, no shorter path can exist and the search stops.</P>
+	 */
+	static <V> void bidirectionalDijkstra(IndexedGraph<V> graph, IndexedGraph<V> reverse,
+			int start, int end, ObserverList<V> observers) {
+		for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.BEGIN))
+		{
+			observer.notifyDijkstraHasBegun();
+		}
+
+		boolean finishes = observers.wants(SearchEvent.VERTEX_FINISHED);
+
+		int n = graph.vertexCount();
+		int[] forwardCost = new int[n];
+		int[] backwardCost = new int[n];
+		int[] pred = new int[n];  // towards start
+		int[] succ = new int[n];  // towards end
+		boolean[] forwardFinished = new boolean[n];
+		boolean[] backwardFinished = new boolean[n];
+		Arrays.fill(forwardCost, Integer.MAX_VALUE);
+		Arrays.fill(backwardCost, Integer.MAX_VALUE);
+		Arrays.fill(pred, -1);
+		Arrays.fill(succ, -1);
+
+		IndexedMinHeap forwardHeap = new IndexedMinHeap(n);
+		IndexedMinHeap backwardHeap = new IndexedMinHeap(n);
+		forwardCost[start] = 0;
+		backwardCost[end] = 0;
+		forwardHeap.insertOrDecrease(start, 0);
+		backwardHeap.insertOrDecrease(end, 0);
+
+		// Best start-to-end cost found so far, and the vertex it passes through
+		long best = start == end ? 0 : Long.MAX_VALUE;
+		int meeting = start == end ? start : -1;
+
+		while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+			long nextForward = forwardHeap.priorityOf(forwardHeap.peekMin());
+			long nextBackward = backwardHeap.priorityOf(backwardHeap.peekMin());
+			if (nextForward + nextBackward >= best) {
+				break;
+			}
+
+			if (nextForward <= nextBackward) {
+				int k = forwardHeap.removeMin();
+				forwardFinished[k] = true;
+				if (finishes) {
+					V vertex = graph.vertexAt(k);
+					for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.VERTEX_FINISHED))
+					{
+						observer.notifyDijkstraVertexFinished(vertex, forwardCost[k]);
+					}
+				}
+				int degree = graph.degree(k);
+				for (int i = 0; i < degree; i++) {
+					int j = graph.target(k, i);
+					int newCost = forwardCost[k] + graph.weight(k, i);
+					if (!forwardFinished[j] && newCost < forwardCost[j]) {
+						forwardCost[j] = newCost;
+						pred[j] = k;
+						forwardHeap.insertOrDecrease(j, newCost);
+					}
+					if (backwardCost[j] != Integer.MAX_VALUE
+							&& (long) forwardCost[j] + backwardCost[j] < best) {
+						best = (long) forwardCost[j] + backwardCost[j];
+						meeting = j;
+					}
+				}
+			} else {
+				int k = backwardHeap.removeMin();
+				backwardFinished[k] = true;
+				int degree = reverse.degree(k);
+				for (int i = 0; i < degree; i++) {
+					int j = reverse.target(k, i);
+					int newCost = backwardCost[k] + reverse.weight(k, i);
+					if (!backwardFinished[j] && newCost < backwardCost[j]) {
+						backwardCost[j] = newCost;
+						succ[j] = k;
+						backwardHeap.insertOrDecrease(j, newCost);
+					}
+					if (forwardCost[j] != Integer.MAX_VALUE
+							&& (long) forwardCost[j] + backwardCost[j] < best) {
+						best = (long) forwardCost[j] + backwardCost[j];
+						meeting = j;
+					}
+				}
+			}
+		}
+
+		if (!observers.wants(SearchEvent.END)) {
+			return;
+		}
+
+		// Start to the meeting vertex along pred, then on to end along succ
+		LinkedList<V> leastCostPath = new LinkedList<>();
+		if (meeting != -1) {
+			for (int current = meeting; current != -1; current = pred[current]) {
+				leastCostPath.addFirst(graph.vertexAt(current));
+			}
+			for (int current = succ[meeting]; current != -1; current = succ[current]) {
+				leastCostPath.addLast(graph.vertexAt(current));
+			}
+		}
+
+		for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.END))
+		{
+			observer.notifyDijkstraIsOver(leastCostPath);
+		}
+	}
+
+	/**
+	 * <P>A* search from start to end.  Vertices leave the heap in order
+	 * of cost so far plus the heuristic's estimate of the cost still to
+	 * go, and the search stops as soon as end leaves the heap.  If the
+	 * heuristic is admissible but not consistent, a finished vertex can
+	 * later be reached more cheaply; it is then put back in the heap
+	 * (and reported again when it finishes for the second time).</P>
+	 */
+	static <V> void aStar(IndexedGraph<V> graph, int start, int end, Heuristic<? super V> heuristic,
+			ObserverList<V> observers) {
+		for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.BEGIN))
+		{
+			observer.notifyDijkstraHasBegun();
+		}
+
+		boolean finishes = observers.wants(SearchEvent.VERTEX_FINISHED);
+
+		int n = graph.vertexCount();
+		int[] cost = new int[n];
+		int[] pred = new int[n];
+		int[] estimate = new int[n];  // -1 until the heuristic is asked
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		Arrays.fill(pred, -1);
+		Arrays.fill(estimate, -1);
+		V goal = graph.vertexAt(end);
+
+		IndexedMinHeap heap = new IndexedMinHeap(n);
+		cost[start] = 0;
+		heap.insertOrDecrease(start, 0);
+
+		while (!heap.isEmpty()) {
+			int k = heap.removeMin();
+			if (finishes) {
+				V vertex = graph.vertexAt(k);
+				for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.VERTEX_FINISHED))
+				{
+					observer.notifyDijkstraVertexFinished(vertex, cost[k]);
+				}
+			}
+			if (k == end) {
+				break;
+			}
+
+			int degree = graph.degree(k);
+			for (int i = 0; i < degree; i++) {
+				int j = graph.target(k, i);
+				int newCost = cost[k] + graph.weight(k, i);
+				if (newCost < cost[j]) {
+					cost[j] = newCost;
+					pred[j] = k;
+					if (estimate[j] < 0) {
+						estimate[j] = heuristic.estimate(graph.vertexAt(j), goal);
+					}
+					heap.insertOrDecrease(j, newCost + estimate[j]);
+				}
+			}
+		}
+
+		if (observers.wants(SearchEvent.END)) {
+			List<V> leastCostPath = path(graph, pred, cost, end);
+			for (GraphAlgorithmObserver<V> observer : observers.get(SearchEvent.END))
+			{
+				observer.notifyDijkstraIsOver(leastCostPath);
+			}
+		}
+	}
+
+	/** Dijkstra's algorithm from source with no observers, for the
+	 * query methods that return a ShortestPathResult.  The heap must be
+	 * empty and come from newQueue(graph); it is left empty again.
+	 */
+	static <V> ShortestPathResult<V> shortestPaths(IndexedGraph<V> graph, int source, VertexQueue heap) {
+		int n = graph.vertexCount();
+		int[] cost = new int[n];
+		int[] pred = new int[n];
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		Arrays.fill(pred, -1);
+
+		// A vertex is finished once it has left the heap, and nothing
+		// finished can be improved upon, so no separate finished set is
+		// needed:  cost[k] + weight < cost[j] is never true for those.
+		cost[source] = 0;
+		heap.insertOrDecrease(source, 0);
+		while (!heap.isEmpty()) {
+			int k = heap.removeMin();
+			int degree = graph.degree(k);
+			for (int i = 0; i < degree; i++) {
+				int j = graph.target(k, i);
+				int newCost = cost[k] + graph.weight(k, i);
+				if (newCost < cost[j]) {
+					cost[j] = newCost;
+					pred[j] = k;
+					heap.insertOrDecrease(j, newCost);
+				}
+			}
+		}
+		return new ShortestPathResult<>(graph, source, cost, pred);
+	}
+
+	/** Runs shortestPaths from each source, spread over the threads of
+	 * the pool.  Each worker thread reuses one queue for all of its
+	 * searches.
+	 */
+	static <V> Map<V, ShortestPathResult<V>> shortestPaths(IndexedGraph<V> graph,
+			Collection<? extends V> sources, ForkJoinPool pool) {
+		ThreadLocal<VertexQueue> heaps = ThreadLocal.withInitial(() -> newQueue(graph));
+
+		List<Callable<ShortestPathResult<V>>> tasks = new ArrayList<>();
+		for (V source : new LinkedHashSet<V>(sources)) {
+			int s = graph.requireIndex(source);
+			tasks.add(() -> shortestPaths(graph, s, heaps.get()));
+		}
+
+		LinkedHashMap<V, ShortestPathResult<V>> results = new LinkedHashMap<>();
+		for (Future<ShortestPathResult<V>> future : pool.invokeAll(tasks)) {
+			ShortestPathResult<V> result;
+			try {
+				result = future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+			results.put(result.getSource(), result);
+		}
+		return results;
+	}
+
+	/** Walks the predecessors back from end, then reverses.  If end
+	 * was never reached the path is empty.
+	 */
+	static <V> List<V> path(IndexedGraph<V> graph, int[] pred, int[] cost, int end) {
+		LinkedList<V> leastCostPath = new LinkedList<>();
+		if (cost[end] != Integer.MAX_VALUE) {
+			for (int current = end; current != -1; current = pred[current]) {
+				leastCostPath.addFirst(graph.vertexAt(current));
+			}
+		}
+		return leastCostPath;
+	}
+}
@@ -0,0 +1,25 @@
+package graph;
+
+/**
+ * <P>A Heuristic guides an A* search (see WeightedGraph.DoAStar) by
+ * estimating the cost of the cheapest path from a vertex to the goal.</P>
+ *
+ * <P>For A* to report a lowest cost path, the estimate must never be
+ * larger than the true cost (the heuristic must be "admissible").  An
+ * estimate of 0 everywhere is always admissible, and turns A* back
+ * into Dijkstra's algorithm.</P>
+ *
+ * @param <V>
+ */
+public interface Heuristic<V> {
+
+	/** Estimates the cost of the cheapest path from one vertex
+	 * to another.
+	 *
+	 * @param from the vertex being considered
+	 * @param goal the vertex the search is trying to reach
+	 * @return a non-negative estimate that is no larger than the
+	 * cost of any path from "from" to "goal"
+	 */
+	public int estimate(V from, V goal);
+}
@@ -0,0 +1,355 @@
+package graph;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>A graph view of a Maze that stores no vertices or edges of its
+ * own.  The juncture at (x, y) has id y * width + x, and its edges are
+ * worked out from the Maze's walls and weights each time a search asks
+ * for them.  Building one takes constant time, it uses almost no memory
+ * beyond the Maze itself, and the searches allocate nothing per edge.
+ * Junctures are only created to pass them to observers and heuristics.</P>
+ *
+ * <P>The edges of a juncture are those to its open neighbours, in the
+ * order above, right, below, left.  Every passage is an edge in both
+ * directions with the same weight, as in a MazeGraph.</P>
+ *
+ * <P>The searches are the same as those of WeightedGraph and notify
+ * the observers in the same way.  The Maze must not change while the
+ * graph is in use.</P>
+ */
+public final class ImplicitMazeGraph extends IndexedGraph<Juncture> {
+
+	// Edge directions, in the order the edges of a juncture are numbered
+	private static final int ABOVE = 0;
+	private static final int RIGHT = 1;
+	private static final int BELOW = 2;
+	private static final int LEFT = 3;
+
+	private final Maze maze;
+	private final int width;
+	private final int height;
+
+	// Counted on first use, since that means looking at every wall
+	private int edgeCount = -1;
+
+	private final ObserverList<Juncture> observerList = new ObserverList<>();
+
+	/**
+	 * @param maze the maze whose junctures and passages are the
+	 * vertices and edges of this graph
+	 */
+	public ImplicitMazeGraph(Maze maze) {
+		this.maze = maze;
+		width = maze.getMazeWidth();
+		height = maze.getMazeHeight();
+	}
+
+	/** Add a GraphAlgorithmObserver to the collection maintained
+	 * by this graph.
+	 *
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<Juncture> observer) {
+		observerList.add(observer);
+	}
+
+	/** Add a GraphAlgorithmObserver that is only told about some kinds
+	 * of event.  See WeightedGraph.addObserver(observer, events).
+	 *
+	 * @param observer
+	 * @param events the kinds of event to notify the observer of
+	 */
+	public void addObserver(GraphAlgorithmObserver<Juncture> observer, Set<SearchEvent> events) {
+		observerList.add(observer, events);
+	}
+
+	/** Returns the number of junctures in the maze.
+	 * @return number of vertices
+	 */
+	public int vertexCount() {
+		return width * height;
+	}
+
+	/** Returns the number of edges, two for every open passage.
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		if (edgeCount < 0) {
+			int count = 0;
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (!maze.isWallToRight(x, y)) {
+						count += 2;
+					}
+					if (!maze.isWallBelow(x, y)) {
+						count += 2;
+					}
+				}
+			}
+			edgeCount = count;
+		}
+		return edgeCount;
+	}
+
+	/** Searches for a given juncture.
+	 *
+	 * @param vertex the juncture we are looking for
+	 * @return true if the juncture is in the maze, false otherwise.
+	 */
+	public boolean containsVertex(Juncture vertex) {
+		return indexOf(vertex) >= 0;
+	}
+
+	/**
+	 * <P>Returns weight of the edge connecting one juncture
+	 * to another.  Returns null if the edge does not
+	 * exist.</P>
+	 *
+	 * @param from juncture where edge begins
+	 * @param to juncture where edge terminates
+	 * @return weight of the edge, or null if there is
+	 * no edge connecting these junctures
+	 * @throws IllegalArgumentException if either of
+	 * the junctures specified are not in the maze.
+	 */
+	public Integer getWeight(Juncture from, Juncture to) {
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		int degree = degree(f);
+		for (int i = 0; i < degree; i++) {
+			if (target(f, i) == t) {
+				return weight(f, i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * <P>Breadth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoBFS.</P>
+	 *
+	 * @param start juncture where search begins
+	 * @param end the algorithm terminates just after this juncture
+	 * is visited
+	 */
+	public void DoBFS(Juncture start, Juncture end) {
+		GraphSearch.breadthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Depth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoDFS.</P>
+	 *
+	 * @param start juncture where search begins
+	 * @param end the algorithm terminates just after this juncture
+	 * is visited
+	 */
+	public void DoDFS(Juncture start, Juncture end) {
+		GraphSearch.depthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start", with the same observer
+	 * notifications as WeightedGraph.DoDijsktra.</P>
+	 *
+	 * @param start juncture where algorithm will start
+	 * @param end special juncture used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 */
+	public void DoDijsktra(Juncture start, Juncture end) {
+		DoDijsktra(start, end, DijkstraMode.ALL_VERTICES);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start" to "end", doing only as much
+	 * work as the mode asks for.  See WeightedGraph.DoDijsktra(V, V,
+	 * DijkstraMode).  Every passage can be walked both ways, so the
+	 * bidirectional search uses this graph as its own reverse.</P>
+	 *
+	 * @param start juncture where algorithm will start
+	 * @param end special juncture used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 * @param mode how far the search needs to go
+	 */
+	public void DoDijsktra(Juncture start, Juncture end, DijkstraMode mode) {
+		int s = requireIndex(start);
+		int e = requireIndex(end);
+		if (mode == DijkstraMode.BIDIRECTIONAL) {
+			GraphSearch.bidirectionalDijkstra(this, this, s, e, observerList);
+		} else {
+			GraphSearch.dijkstra(this, s, e, mode == DijkstraMode.POINT_TO_POINT, observerList);
+		}
+	}
+
+	/**
+	 * <P>A* search from "start" to "end", estimating the remaining cost
+	 * with the Manhattan distance between junctures.  See
+	 * MazeGraph.DoAStar.</P>
+	 *
+	 * @param start juncture where the search will start
+	 * @param end juncture the search is trying to reach
+	 */
+	public void DoAStar(Juncture start, Juncture end) {
+		DoAStar(start, end, new ManhattanHeuristic());
+	}
+
+	/**
+	 * <P>A* search from "start" to "end", with the same observer
+	 * notifications as WeightedGraph.DoAStar.</P>
+	 *
+	 * @param start juncture where the search will start
+	 * @param end juncture the search is trying to reach
+	 * @param heuristic estimates the remaining cost from a juncture to "end"
+	 */
+	public void DoAStar(Juncture start, Juncture end, Heuristic<? super Juncture> heuristic) {
+		GraphSearch.aStar(this, requireIndex(start), requireIndex(end), heuristic, observerList);
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every juncture.
+	 * No observers are notified.  See WeightedGraph.shortestPaths.</P>
+	 *
+	 * @param source juncture the paths start from
+	 * @return lowest costs and predecessors for every juncture
+	 * @throws IllegalArgumentException if the source is not in the maze
+	 */
+	public ShortestPathResult<Juncture> shortestPaths(Juncture source) {
+		return GraphSearch.shortestPaths(this, requireIndex(source), GraphSearch.newQueue(this));
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from each of the given sources
+	 * to every juncture, running the searches in parallel on the given
+	 * pool.  No observers are notified.</P>
+	 *
+	 * @param sources the junctures to search from
+	 * @param pool the threads to run the searches on
+	 * @return one result per distinct source, in the order the sources
+	 * were given
+	 * @throws IllegalArgumentException if a source is not in the maze
+	 */
+	public Map<Juncture, ShortestPathResult<Juncture>> shortestPathsFrom(Collection<? extends Juncture> sources,
+			ForkJoinPool pool) {
+		return GraphSearch.shortestPaths(this, sources, pool);
+	}
+
+	/**
+	 * <P>Parallel breadth-first search from "source" over the whole
+	 * maze, on the given pool.  See WeightedGraph.parallelBFS.</P>
+	 *
+	 * @param source juncture the search starts from
+	 * @param pool the threads to run the search on
+	 * @param levelObserver told about each level as it completes, or null
+	 * @return hop counts (as costs) and BFS parents (as predecessors)
+	 */
+	public ShortestPathResult<Juncture> parallelBFS(Juncture source, ForkJoinPool pool,
+			BFSLevelObserver<Juncture> levelObserver) {
+		return ParallelBFS.run(this, this, requireIndex(source), pool, levelObserver);
+	}
+
+	/**
+	 * <P>Delta-stepping shortest paths from "source", on the given pool.
+	 * See WeightedGraph.deltaStepping.</P>
+	 *
+	 * @param source juncture the paths start from
+	 * @param delta bucket width, at least 1
+	 * @param pool the threads to run the search on
+	 * @return lowest costs and predecessors for every juncture
+	 */
+	public ShortestPathResult<Juncture> deltaStepping(Juncture source, int delta, ForkJoinPool pool) {
+		return DeltaStepping.run(this, this, requireIndex(source), delta, pool);
+	}
+
+	int maxWeight() {
+		return Maze.MAX_WEIGHT;
+	}
+
+	Juncture vertexAt(int id) {
+		// Not Maze.juncture, whose cache would keep a Juncture per
+		// vertex alive for as long as the maze
+		return new Juncture(id % width, id / width);
+	}
+
+	int indexOf(Object vertex) {
+		if (!(vertex instanceof Juncture)) {
+			return -1;
+		}
+		Juncture juncture = (Juncture) vertex;
+		int x = juncture.getX();
+		int y = juncture.getY();
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return -1;
+		}
+		return y * width + x;
+	}
+
+	int degree(int v) {
+		int x = v % width;
+		int y = v / width;
+		int degree = 0;
+		for (int d = ABOVE; d <= LEFT; d++) {
+			if (isOpen(x, y, d)) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	int target(int v, int i) {
+		switch (direction(v, i)) {
+		case ABOVE:
+			return v - width;
+		case RIGHT:
+			return v + 1;
+		case BELOW:
+			return v + width;
+		default:
+			return v - 1;
+		}
+	}
+
+	int weight(int v, int i) {
+		int x = v % width;
+		int y = v / width;
+		switch (direction(v, i)) {
+		case ABOVE:
+			return maze.getWeightAbove(x, y);
+		case RIGHT:
+			return maze.getWeightToRight(x, y);
+		case BELOW:
+			return maze.getWeightBelow(x, y);
+		default:
+			return maze.getWeightToLeft(x, y);
+		}
+	}
+
+	/* The direction of edge i of vertex v */
+	private int direction(int v, int i) {
+		int x = v % width;
+		int y = v / width;
+		for (int d = ABOVE; d <= LEFT; d++) {
+			if (isOpen(x, y, d) && i-- == 0) {
+				return d;
+			}
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	private boolean isOpen(int x, int y, int direction) {
+		switch (direction) {
+		case ABOVE:
+			return !maze.isWallAbove(x, y);
+		case RIGHT:
+			return !maze.isWallToRight(x, y);
+		case BELOW:
+			return !maze.isWallBelow(x, y);
+		default:
+			return !maze.isWallToLeft(x, y);
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package graph;
+
+/**
+ * <P>Can be passed to an EdgeListImporter to hear how far it has got
+ * through a file.</P>
+ */
+public interface ImportProgress {
+
+	/** Called each time another part of the file has been parsed and
+	 * its edges added to the graph, on the thread that started the
+	 * import.
+	 *
+	 * @param bytesDone number of bytes of the file dealt with so far
+	 * @param bytesTotal size of the file in bytes
+	 */
+	public void notifyProgress(long bytesDone, long bytesTotal);
+}
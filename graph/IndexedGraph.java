@@ -0,0 +1,57 @@
+package graph;
+
+/**
+ * <P>The view of a graph that the algorithms in GraphSearch work
+ * with.  Vertices are identified by dense integer ids from 0 to
+ * vertexCount() - 1, and the edges leaving vertex v are numbered
+ * 0 to degree(v) - 1.</P>
+ *
+ * <P>Every graph class in this package extends IndexedGraph, so the
+ * same search code serves all of them.</P>
+ */
+abstract class IndexedGraph<V> {
+
+	// DFS/BFS scratch space, one per thread so that concurrent searches
+	// of an unchanging graph do not interfere
+	private final ThreadLocal<Traversal> traversals = ThreadLocal.withInitial(Traversal::new);
+
+	/** Returns the number of vertices. */
+	abstract int vertexCount();
+
+	/** Returns the total number of edges. */
+	abstract int edgeCount();
+
+	/** Returns a weight at least as large as every edge weight. */
+	abstract int maxWeight();
+
+	/** Returns the vertex with the given id. */
+	abstract V vertexAt(int id);
+
+	/** Returns the id of a vertex, or -1 if it is not in the graph. */
+	abstract int indexOf(Object vertex);
+
+	/** Returns the number of edges leaving vertex v. */
+	abstract int degree(int v);
+
+	/** Returns the id of the vertex that edge i of vertex v leads to. */
+	abstract int target(int v, int i);
+
+	/** Returns the weight of edge i of vertex v. */
+	abstract int weight(int v, int i);
+
+	/** Returns this thread's traversal scratch space for this graph. */
+	final Traversal traversal() {
+		return traversals.get();
+	}
+
+	/** Returns the id of a vertex, throwing an IllegalArgumentException
+	 * if it is not in the graph.
+	 */
+	final int requireIndex(Object vertex) {
+		int id = indexOf(vertex);
+		if (id < 0) {
+			throw new IllegalArgumentException();
+		}
+		return id;
+	}
+}
@@ -0,0 +1,152 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>A binary min-heap of integer keys in the range [0, capacity),
+ * each with an integer priority.  Because the heap remembers where
+ * every key is stored, the priority of a key that is already in the
+ * heap can be lowered in O(log n) time (decrease-key).</P>
+ *
+ * <P>This is the priority queue used by the shortest-path algorithms
+ * in this package.  Vertices are referred to by their dense integer
+ * index rather than by the vertex objects themselves.</P>
+ */
+class IndexedMinHeap implements VertexQueue {
+
+	// heap[i] is the key stored at heap slot i
+	private final int[] heap;
+
+	// position[key] is the heap slot holding key, or -1 if absent
+	private final int[] position;
+
+	// priority[key] is only meaningful while key is in the heap
+	private final int[] priority;
+
+	private int size;
+
+	/** Create an empty heap able to hold the keys 0 .. capacity - 1.
+	 *
+	 * @param capacity number of distinct keys
+	 */
+	IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		position = new int[capacity];
+		priority = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int key) {
+		return position[key] >= 0;
+	}
+
+	/** Returns the key with the smallest priority without removing it.
+	 *
+	 * @return the key at the top of a non-empty heap
+	 */
+	int peekMin() {
+		return heap[0];
+	}
+
+	/** Returns the priority currently associated with a key in the heap.
+	 *
+	 * @param key a key that is in the heap
+	 * @return its priority
+	 */
+	int priorityOf(int key) {
+		return priority[key];
+	}
+
+	/** Inserts the key if it is absent, or lowers its priority if the
+	 * new priority is smaller than the current one.  Larger priorities
+	 * for keys already in the heap are ignored.
+	 *
+	 * @param key key to insert or update
+	 * @param newPriority the priority to use
+	 */
+	public void insertOrDecrease(int key, int newPriority) {
+		int slot = position[key];
+		if (slot < 0) {
+			slot = size++;
+			heap[slot] = key;
+			position[key] = slot;
+			priority[key] = newPriority;
+			siftUp(slot);
+		} else if (newPriority < priority[key]) {
+			priority[key] = newPriority;
+			siftUp(slot);
+		}
+	}
+
+	/** Removes and returns the key with the smallest priority.  Ties
+	 * are broken arbitrarily.
+	 *
+	 * @return the key removed
+	 */
+	public int removeMin() {
+		int min = heap[0];
+		position[min] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/** Empties the heap so it can be reused by another search. */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int slot) {
+		int key = heap[slot];
+		int p = priority[key];
+		while (slot > 0) {
+			int parentSlot = (slot - 1) >>> 1;
+			int parent = heap[parentSlot];
+			if (priority[parent] <= p) {
+				break;
+			}
+			heap[slot] = parent;
+			position[parent] = slot;
+			slot = parentSlot;
+		}
+		heap[slot] = key;
+		position[key] = slot;
+	}
+
+	private void siftDown(int slot) {
+		int key = heap[slot];
+		int p = priority[key];
+		int half = size >>> 1;
+		while (slot < half) {
+			int child = 2 * slot + 1;
+			int right = child + 1;
+			if (right < size && priority[heap[right]] < priority[heap[child]]) {
+				child = right;
+			}
+			if (priority[heap[child]] >= p) {
+				break;
+			}
+			heap[slot] = heap[child];
+			position[heap[slot]] = slot;
+			slot = child;
+		}
+		heap[slot] = key;
+		position[key] = slot;
+	}
+}
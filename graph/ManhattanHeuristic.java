@@ -0,0 +1,34 @@
+package graph;
+
+import maze.Juncture;
+
+/**
+ * <P>Estimates the cost between two Junctures as their Manhattan
+ * distance (the number of steps between them when moving only up,
+ * down, left and right) times the smallest possible edge weight.</P>
+ *
+ * <P>Every edge of a MazeGraph joins neighbouring junctures and weighs
+ * at least 1, so with the default minimum weight of 1 the estimate
+ * never exceeds the true cost, as A* requires.</P>
+ */
+public class ManhattanHeuristic implements Heuristic<Juncture> {
+
+	private final int minimumWeight;
+
+	/** Uses a minimum edge weight of 1, as in every Maze. */
+	public ManhattanHeuristic() {
+		this(1);
+	}
+
+	/**
+	 * @param minimumWeight the smallest weight of any edge in the
+	 * graph being searched
+	 */
+	public ManhattanHeuristic(int minimumWeight) {
+		this.minimumWeight = minimumWeight;
+	}
+
+	public int estimate(Juncture from, Juncture goal) {
+		return minimumWeight * (Math.abs(from.getX() - goal.getX()) + Math.abs(from.getY() - goal.getY()));
+	}
+}
@@ -0,0 +1,427 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <P>A read-only graph kept in a file and searched straight from the
+ * file through FileChannel.map.  Opening one reads only a short
+ * header, however large the graph is; the operating system brings the
+ * rest in from the file as the searches touch it, and shares it between
+ * every process that opens the same file.  Files are written by
+ * WeightedGraph.save and CompactGraph.save.</P>
+ *
+ * <P>The file starts with a header:  the four bytes "WGPH", the format
+ * version (int, 1), the number of vertices n, the number of edges m,
+ * the largest weight, the number of slots in the vertex table (all
+ * ints) and the size of the vertex dictionary in bytes (long).  Then
+ * come, each as an array of ints:  the edge offsets (n + 1), the edge
+ * targets (m) and the edge weights (m), in the compressed sparse row
+ * form CompactGraph uses; the offsets of each vertex's bytes in the
+ * dictionary (n + 1); and the vertex table.  Last comes the dictionary
+ * itself, the vertices encoded by a VertexCodec one after the other.
+ * Numbers are big-endian.</P>
+ *
+ * <P>The vertex table is an open-addressing hash table over the
+ * encoded vertices, holding each vertex's id plus one (0 marks an empty
+ * slot), so that a vertex can be looked up without decoding anything.
+ * Each section must be smaller than 2GB.</P>
+ *
+ * <P>A MappedGraph supports the same searches as a CompactGraph, apart
+ * from the ones that need the reversed edges, which the file does not
+ * hold.  It never changes, so it is safe to query from several threads
+ * as long as no observers are registered.</P>
+ *
+ * @param <V>
+ */
+public final class MappedGraph<V> extends IndexedGraph<V> {
+
+	/** The first four bytes of the file. */
+	public static final int MAGIC = 0x57475048;  // "WGPH"
+
+	/** The version of the format written. */
+	public static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 32;
+
+	private final VertexCodec<V> codec;
+	private final int vertexCount;
+	private final int edgeCount;
+	private final int maxWeight;
+
+	// The sections of the file, see class comment
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final IntBuffer weights;
+	private final IntBuffer nameOffsets;
+	private final IntBuffer table;
+	private final ByteBuffer dictionary;
+
+	private final ObserverList<V> observerList;
+
+	private MappedGraph(FileChannel channel, VertexCodec<V> codec) throws IOException {
+		this.codec = codec;
+		if (channel.size() < HEADER_BYTES) {
+			throw new IOException("not a graph file");
+		}
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new IOException("not a graph file");
+		}
+		vertexCount = header.getInt();
+		edgeCount = header.getInt();
+		maxWeight = header.getInt();
+		int slots = header.getInt();
+		long dictionaryBytes = header.getLong();
+		if (vertexCount < 0 || edgeCount < 0 || slots < 0 || dictionaryBytes < 0
+				|| channel.size() != HEADER_BYTES + 4L * (2L * vertexCount + 2 + 2L * edgeCount + slots)
+						+ dictionaryBytes) {
+			throw new IOException("not a graph file");
+		}
+
+		long position = HEADER_BYTES;
+		offsets = map(channel, position, vertexCount + 1L).asIntBuffer();
+		position += 4L * (vertexCount + 1);
+		targets = map(channel, position, edgeCount).asIntBuffer();
+		position += 4L * edgeCount;
+		weights = map(channel, position, edgeCount).asIntBuffer();
+		position += 4L * edgeCount;
+		nameOffsets = map(channel, position, vertexCount + 1L).asIntBuffer();
+		position += 4L * (vertexCount + 1);
+		table = map(channel, position, slots).asIntBuffer();
+		position += 4L * slots;
+		dictionary = channel.map(FileChannel.MapMode.READ_ONLY, position, dictionaryBytes);
+		observerList = new ObserverList<>();
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long position, long ints) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, 4 * ints);
+	}
+
+	/**
+	 * Opens a graph file written by WeightedGraph.save or
+	 * CompactGraph.save.
+	 *
+	 * @param file the file to open
+	 * @param codec decodes the vertices; must be the codec the file was
+	 * saved with
+	 * @return the graph, searched straight from the file
+	 * @throws IOException if the file cannot be read or is not a graph
+	 * file
+	 */
+	public static <V> MappedGraph<V> open(Path file, VertexCodec<V> codec) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new MappedGraph<>(channel, codec);
+		}
+	}
+
+	/** Add a GraphAlgorithmObserver to the collection maintained
+	 * by this graph.
+	 *
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer) {
+		observerList.add(observer);
+	}
+
+	/** Add a GraphAlgorithmObserver that is only told about some kinds
+	 * of event.  See WeightedGraph.addObserver(observer, events).
+	 *
+	 * @param observer
+	 * @param events the kinds of event to notify the observer of
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer, Set<SearchEvent> events) {
+		observerList.add(observer, events);
+	}
+
+	/** Returns the number of vertices in the graph.
+	 * @return number of vertices
+	 */
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	/** Returns the number of edges in the graph.
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	/** Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return indexOf(vertex) >= 0;
+	}
+
+	/**
+	 * <P>Returns weight of the edge connecting one vertex
+	 * to another.  Returns null if the edge does not
+	 * exist.</P>
+	 *
+	 * @param from vertex where edge begins
+	 * @param to vertex where edge terminates
+	 * @return weight of the edge, or null if there is
+	 * no edge connecting these vertices
+	 * @throws IllegalArgumentException if either of
+	 * the vertices specified are not in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		for (int e = offsets.get(f); e < offsets.get(f + 1); e++) {
+			if (targets.get(e) == t) {
+				return weights.get(e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * <P>Breadth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoBFS.</P>
+	 *
+	 * @param start vertex where search begins
+	 * @param end the algorithm terminates just after this vertex
+	 * is visited
+	 */
+	public void DoBFS(V start, V end) {
+		GraphSearch.breadthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Depth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoDFS.</P>
+	 *
+	 * @param start vertex where search begins
+	 * @param end the algorithm terminates just after this vertex
+	 * is visited
+	 */
+	public void DoDFS(V start, V end) {
+		GraphSearch.depthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start", with the same observer
+	 * notifications as WeightedGraph.DoDijsktra.</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 */
+	public void DoDijsktra(V start, V end) {
+		DoDijsktra(start, end, DijkstraMode.ALL_VERTICES);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start" to "end", doing only as much
+	 * work as the mode asks for.  See WeightedGraph.DoDijsktra(V, V,
+	 * DijkstraMode).  The file holds no reversed edges, so BIDIRECTIONAL
+	 * searches forwards only, as POINT_TO_POINT does.</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 * @param mode how far the search needs to go
+	 */
+	public void DoDijsktra(V start, V end, DijkstraMode mode) {
+		GraphSearch.dijkstra(this, requireIndex(start), requireIndex(end), mode != DijkstraMode.ALL_VERTICES,
+				observerList);
+	}
+
+	/**
+	 * <P>A* search from "start" to "end", with the same observer
+	 * notifications as WeightedGraph.DoAStar.</P>
+	 *
+	 * @param start vertex where the search will start
+	 * @param end vertex the search is trying to reach
+	 * @param heuristic estimates the remaining cost from a vertex to "end"
+	 */
+	public void DoAStar(V start, V end, Heuristic<? super V> heuristic) {
+		GraphSearch.aStar(this, requireIndex(start), requireIndex(end), heuristic, observerList);
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every vertex.
+	 * No observers are notified.  See WeightedGraph.shortestPaths.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @return lowest costs and predecessors for every vertex
+	 * @throws IllegalArgumentException if the source is not in the graph
+	 */
+	public ShortestPathResult<V> shortestPaths(V source) {
+		return GraphSearch.shortestPaths(this, requireIndex(source), GraphSearch.newQueue(this));
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from each of the given sources
+	 * to every vertex, running the searches in parallel on the given
+	 * pool.  No observers are notified.</P>
+	 *
+	 * @param sources the vertices to search from
+	 * @param pool the threads to run the searches on
+	 * @return one result per distinct source, in the order the sources
+	 * were given
+	 * @throws IllegalArgumentException if a source is not in the graph
+	 */
+	public Map<V, ShortestPathResult<V>> shortestPathsFrom(Collection<? extends V> sources, ForkJoinPool pool) {
+		return GraphSearch.shortestPaths(this, sources, pool);
+	}
+
+	/** Writes a graph in the format described above.  The vertices
+	 * keep their ids.
+	 */
+	static <V> void write(IndexedGraph<V> graph, VertexCodec<? super V> codec, Path file) throws IOException {
+		int n = graph.vertexCount();
+		int m = graph.edgeCount();
+
+		// Encode every vertex once to size the dictionary and fill the
+		// table, and again when the dictionary is written
+		int slots = (int) Long.highestOneBit(Math.min(Math.max(4L * n - 1, 1), 1 << 30));
+		int[] slotIds = new int[slots];
+		int[] nameEnds = new int[n];
+		long dictionaryBytes = 0;
+		for (int v = 0; v < n; v++) {
+			byte[] bytes = codec.encode(graph.vertexAt(v));
+			dictionaryBytes += bytes.length;
+			if (dictionaryBytes > Integer.MAX_VALUE) {
+				throw new IOException("vertex dictionary too large");
+			}
+			nameEnds[v] = (int) dictionaryBytes;
+			int slot = hash(ByteBuffer.wrap(bytes)) & (slots - 1);
+			while (slotIds[slot] != 0) {
+				slot = (slot + 1) & (slots - 1);
+			}
+			slotIds[slot] = v + 1;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer out = ByteBuffer.allocate(1 << 16);
+			out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putInt(graph.maxWeight()).putInt(slots)
+					.putLong(dictionaryBytes);
+			int offset = 0;
+			for (int v = 0; v <= n; v++) {
+				putInt(channel, out, offset);
+				offset += v < n ? graph.degree(v) : 0;
+			}
+			for (int v = 0; v < n; v++) {
+				for (int i = 0; i < graph.degree(v); i++) {
+					putInt(channel, out, graph.target(v, i));
+				}
+			}
+			for (int v = 0; v < n; v++) {
+				for (int i = 0; i < graph.degree(v); i++) {
+					putInt(channel, out, graph.weight(v, i));
+				}
+			}
+			putInt(channel, out, 0);
+			for (int v = 0; v < n; v++) {
+				putInt(channel, out, nameEnds[v]);
+			}
+			for (int slot = 0; slot < slots; slot++) {
+				putInt(channel, out, slotIds[slot]);
+			}
+			for (int v = 0; v < n; v++) {
+				ByteBuffer bytes = ByteBuffer.wrap(codec.encode(graph.vertexAt(v)));
+				while (bytes.hasRemaining()) {
+					if (!out.hasRemaining()) {
+						drain(channel, out);
+					}
+					int length = Math.min(out.remaining(), bytes.remaining());
+					out.put(bytes.array(), bytes.position(), length);
+					bytes.position(bytes.position() + length);
+				}
+			}
+			drain(channel, out);
+		}
+	}
+
+	private static void putInt(FileChannel channel, ByteBuffer out, int value) throws IOException {
+		if (out.remaining() < 4) {
+			drain(channel, out);
+		}
+		out.putInt(value);
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+		out.flip();
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		out.clear();
+	}
+
+	/* FNV-1a over the remaining bytes, with the high bits folded in */
+	private static int hash(ByteBuffer bytes) {
+		int h = 0x811C9DC5;
+		for (int i = bytes.position(); i < bytes.limit(); i++) {
+			h = (h ^ (bytes.get(i) & 0xFF)) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	V vertexAt(int id) {
+		int start = nameOffsets.get(id);
+		return codec.decode(dictionary.slice(start, nameOffsets.get(id + 1) - start));
+	}
+
+	@SuppressWarnings("unchecked")
+	int indexOf(Object vertex) {
+		byte[] bytes;
+		try {
+			bytes = codec.encode((V) vertex);
+		} catch (ClassCastException | NullPointerException e) {
+			return -1;
+		}
+		int mask = table.capacity() - 1;
+		if (mask < 0) {
+			return -1;
+		}
+		for (int slot = hash(ByteBuffer.wrap(bytes)) & mask; table.get(slot) != 0; slot = (slot + 1) & mask) {
+			int id = table.get(slot) - 1;
+			if (sameBytes(bytes, nameOffsets.get(id), nameOffsets.get(id + 1))) {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	private boolean sameBytes(byte[] bytes, int start, int end) {
+		if (end - start != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			if (dictionary.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	int maxWeight() {
+		return maxWeight;
+	}
+
+	int degree(int v) {
+		return offsets.get(v + 1) - offsets.get(v);
+	}
+
+	int target(int v, int i) {
+		return targets.get(offsets.get(v) + i);
+	}
+
+	int weight(int v, int i) {
+		return weights.get(offsets.get(v) + i);
+	}
+}
@@ -3,7 +3,7 @@ import graph.WeightedGraph;
 import maze.Juncture;
 import maze.Maze;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /** 
  * <P>The MazeGraph is an extension of WeightedGraph.  
@@ -46,100 +46,112 @@ public class MazeGraph extends WeightedGraph<Juncture> {
 	Maze maze;
 
 	public MazeGraph(Maze maze) {
+		super(junctures(maze));
 		this.maze = maze;
-		Juncture currentJuncture;
+	}
+
+	/**
+	 * <P>Perform an A* search from "start" to "end" (see
+	 * WeightedGraph.DoAStar), estimating the remaining cost with the
+	 * Manhattan distance between junctures.  Every edge weight in a
+	 * Maze is at least 1, so the estimate is never too high and the
+	 * path found has the lowest possible cost.</P>
+	 *
+	 * @param start juncture where the search will start
+	 * @param end juncture the search is trying to reach
+	 */
+	public void DoAStar(Juncture start, Juncture end) {
+		DoAStar(start, end, new ManhattanHeuristic());
+	}
 
-		for(int y = 0; y < maze.getMazeHeight(); y++)
+	/* Collects the junctures and edges in the order adding them one at
+	 * a time would:  row by row, each juncture and then the edges to its
+	 * open neighbours, with a neighbour added as a vertex the first time
+	 * it is seen.  ids[] stands in for containsVertex.
+	 */
+	private static Builder<Juncture> junctures(Maze maze) {
+		int width = maze.getMazeWidth();
+		int height = maze.getMazeHeight();
+
+		// Every passage gives two edges each way, one from each end
+		long passages = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (!maze.isWallToRight(x, y)) {
+					passages++;
+				}
+				if (!maze.isWallBelow(x, y)) {
+					passages++;
+				}
+			}
+		}
+		Builder<Juncture> builder = new Builder<>(width * height, (int) Math.min(Integer.MAX_VALUE - 8, 4 * passages));
+		int[] ids = new int[width * height];
+		Arrays.fill(ids, -1);
+
+		for(int y = 0; y < height; y++)
 		{
-			for (int x = 0; x < maze.getMazeWidth(); x++)
+			for (int x = 0; x < width; x++)
 			{
-				// Set current juncture
-				currentJuncture = new Juncture(x, y);
-
 				// Add as vertex to the graph
-				if (!this.containsVertex(currentJuncture))
-				{
-					this.addVertex(currentJuncture);
-				}
+				int current = id(builder, maze, ids, x, y);
 
 				// Add edges for current juncture (this will check for walls)
-				createEdgeLinks(currentJuncture);
+				createEdgeLinks(builder, maze, ids, current, x, y);
 			}
 		}
+		return builder;
 	}
 
 	// Add edges
-	private void createEdgeLinks(Juncture current)
+	private static void createEdgeLinks(Builder<Juncture> builder, Maze maze, int[] ids, int current,
+			int x, int y)
 	{
 		/*
-		Above = current.getX(), current.getY() - 1
-		Right = current.getX() + 1, current.getY()
-		Below = current.getX(), current.getY() + 1
-		Left = current.getX() - 1, current.getY()
+		Above = x, y - 1
+		Right = x + 1, y
+		Below = x, y + 1
+		Left = x - 1, y
 		 */
 
-		// Temp vars
-		Juncture tempJuncture;
-		int tempWeight;
-
 		// ABOVE
-		if (!maze.isWallAbove(current))
+		if (!maze.isWallAbove(x, y))
 		{
-			tempJuncture = new Juncture(current.getX(), current.getY() - 1);
-			tempWeight = maze.getWeightAbove(current);
-
-			// Add double edges to make undirected graph
-			if (!this.containsVertex(tempJuncture)) {
-				this.addVertex(tempJuncture);
-			}
-
-			this.addEdge(current, tempJuncture, tempWeight);
-			this.addEdge(tempJuncture, current, tempWeight);
+			link(builder, current, id(builder, maze, ids, x, y - 1), maze.getWeightAbove(x, y));
 		}
 
 		// RIGHT
-		if (!maze.isWallToRight(current))
+		if (!maze.isWallToRight(x, y))
 		{
-			tempJuncture = new Juncture(current.getX() + 1, current.getY());
-			tempWeight = maze.getWeightToRight(current);
-
-			// Add double edges to make undirected graph
-			if (!this.containsVertex(tempJuncture)) {
-				this.addVertex(tempJuncture);
-			}
-
-			this.addEdge(current, tempJuncture, tempWeight);
-			this.addEdge(tempJuncture, current, tempWeight);
+			link(builder, current, id(builder, maze, ids, x + 1, y), maze.getWeightToRight(x, y));
 		}
 
 		// BELOW
-		if (!maze.isWallBelow(current))
+		if (!maze.isWallBelow(x, y))
 		{
-			tempJuncture = new Juncture(current.getX(), current.getY() + 1);
-			tempWeight = maze.getWeightBelow(current);
-
-			// Add double edges to make undirected graph
-			if (!this.containsVertex(tempJuncture)) {
-				this.addVertex(tempJuncture);
-			}
-
-			this.addEdge(current, tempJuncture, tempWeight);
-			this.addEdge(tempJuncture, current, tempWeight);
+			link(builder, current, id(builder, maze, ids, x, y + 1), maze.getWeightBelow(x, y));
 		}
 
 		// LEFT
-		if (!maze.isWallToLeft(current))
+		if (!maze.isWallToLeft(x, y))
 		{
-			tempJuncture = new Juncture(current.getX() - 1, current.getY());
-			tempWeight = maze.getWeightToLeft(current);
+			link(builder, current, id(builder, maze, ids, x - 1, y), maze.getWeightToLeft(x, y));
+		}
+	}
 
-			// Add double edges to make undirected graph
-			if (!this.containsVertex(tempJuncture)) {
-				this.addVertex(tempJuncture);
-			}
+	// Add double edges to make undirected graph
+	private static void link(Builder<Juncture> builder, int a, int b, int weight) {
+		builder.addEdgeByIndex(a, b, weight);
+		builder.addEdgeByIndex(b, a, weight);
+	}
 
-			this.addEdge(current, tempJuncture, tempWeight);
-			this.addEdge(tempJuncture, current, tempWeight);
+	/* The vertex number of juncture (x, y), adding it if it is new */
+	private static int id(Builder<Juncture> builder, Maze maze, int[] ids, int x, int y) {
+		int cell = y * maze.getMazeWidth() + x;
+		if (ids[cell] < 0) {
+			ids[cell] = builder.vertexCount();
+			builder.addVertex(maze.juncture(x, y));
 		}
+		return ids[cell];
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * <P>The observers of a graph, grouped by the SearchEvents each one
+ * wants.  The searches in GraphSearch ask wants(event) once, and for a
+ * kind of event nobody wants they do no notification work at all.</P>
+ *
+ * <P>Each group is an array that is replaced, never changed, when an
+ * observer is added, so iterating over it allocates nothing.</P>
+ */
+final class ObserverList<V> {
+
+	private static final Set<SearchEvent> ALL_EVENTS = EnumSet.allOf(SearchEvent.class);
+
+	// byEvent[e.ordinal()] holds the observers that want event e, in the
+	// order they were added
+	private final GraphAlgorithmObserver<V>[][] byEvent;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	ObserverList() {
+		byEvent = new GraphAlgorithmObserver[ALL_EVENTS.size()][0];
+	}
+
+	/** A copy of other, which later additions to either do not affect. */
+	ObserverList(ObserverList<V> other) {
+		byEvent = other.byEvent.clone();
+	}
+
+	/** Adds an observer that wants every event. */
+	void add(GraphAlgorithmObserver<V> observer) {
+		add(observer, ALL_EVENTS);
+	}
+
+	void add(GraphAlgorithmObserver<V> observer, Set<SearchEvent> events) {
+		for (SearchEvent event : events) {
+			GraphAlgorithmObserver<V>[] group = byEvent[event.ordinal()];
+			group = Arrays.copyOf(group, group.length + 1);
+			group[group.length - 1] = observer;
+			byEvent[event.ordinal()] = group;
+		}
+	}
+
+	boolean wants(SearchEvent event) {
+		return byEvent[event.ordinal()].length > 0;
+	}
+
+	/** The observers that want the event.  The array must not be changed. */
+	GraphAlgorithmObserver<V>[] get(SearchEvent event) {
+		return byEvent[event.ordinal()];
+	}
+}
@@ -0,0 +1,484 @@
+package graph;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <P>A read-only graph whose edges are kept outside the Java heap, in
+ * direct ByteBuffers, for graphs with far more edges than the heap
+ * could hold as objects.  The edges are stored in the compressed
+ * sparse row form CompactGraph uses, so the garbage collector has
+ * nothing to trace however many edges there are; only the vertex
+ * objects and their ids stay on the heap.</P>
+ *
+ * <P>Direct buffers are limited by the JVM option
+ * -XX:MaxDirectMemorySize, which is the same as the largest heap
+ * (-Xmx) unless it is given.  A graph bigger than the heap therefore
+ * needs that option, set to at least 12 bytes per edge plus 4 bytes
+ * per vertex (the edges are built and kept in 12 bytes each), with the
+ * edge arrays rounded up to whole chunks of 4MB.  20 million edges
+ * fit in a 300MB heap's default, for example, but 100 million need
+ * about 1.2GB, so "-XX:MaxDirectMemorySize=2g" or so.</P>
+ *
+ * <P>An OffHeapGraph is put together with an OffHeapGraph.Builder,
+ * which also keeps the edges off the heap while they are collected.
+ * build() sorts the edges into place in the builder's own buffers, so
+ * building takes no more direct memory than collecting the edges did.
+ * close() lets go of the edges at once instead of whenever the graph
+ * itself becomes garbage; the memory is returned when the garbage
+ * collector next frees the buffers.  A closed graph throws
+ * IllegalStateException from every search.</P>
+ *
+ * <P>The searches are the same as a MappedGraph's, with the same
+ * observer notifications as a WeightedGraph.  Their per-search costs
+ * and predecessors are int arrays, which the garbage collector never
+ * looks inside either.  The graph never changes, so it is safe to query
+ * from several threads as long as no observers are registered and it
+ * is not closed meanwhile.</P>
+ *
+ * @param <V>
+ */
+public final class OffHeapGraph<V> extends IndexedGraph<V> implements AutoCloseable {
+
+	private final VertexIndex<V> vertices;
+	private final int edgeCount;
+	private final int maxWeight;
+
+	// CSR adjacency:  the edges leaving vertex i are at positions
+	// offsets[i] .. offsets[i + 1] - 1 of targets and weights.  All three
+	// are null once the graph is closed.
+	private DirectIntArray offsets;
+	private DirectIntArray targets;
+	private DirectIntArray weights;
+
+	private final ObserverList<V> observerList;
+
+	/* Sorts the builder's edges by the vertex they leave, in place */
+	private OffHeapGraph(Builder<V> builder) {
+		int n = builder.vertices.size();
+		int m = builder.edgeCount;
+		DirectIntArray from = builder.from;
+		DirectIntArray to = builder.to;
+		DirectIntArray edgeWeights = builder.weights;
+
+		// One pass checks the edges and counts the degrees
+		int[] next = new int[n + 1];
+		int max = 0;
+		for (int e = 0; e < m; e++) {
+			int f = from.get(e);
+			int t = to.get(e);
+			int w = edgeWeights.get(e);
+			if (f < 0 || f >= n || t < 0 || t >= n || w < 0) {
+				throw new IllegalArgumentException();
+			}
+			next[f + 1]++;
+			max = Math.max(max, w);
+		}
+		offsets = new DirectIntArray(n + 1L);
+		for (int v = 0; v < n; v++) {
+			next[v + 1] += next[v];
+			offsets.set(v + 1, next[v + 1]);
+		}
+
+		// Each edge's place is the next free one of its vertex, which
+		// keeps the edges of a vertex in the order they were added.  The
+		// places are written over the sources, which are not needed
+		// any more.
+		for (int e = 0; e < m; e++) {
+			from.set(e, next[from.get(e)]++);
+		}
+
+		// Then the edges are moved to their places by following the
+		// cycles of that permutation, each swap putting one edge in its
+		// place for good, and the builder's arrays become the graph's
+		DirectIntArray place = from;
+		for (int e = 0; e < m; e++) {
+			int p = place.get(e);
+			while (p != e) {
+				int t = to.get(p);
+				to.set(p, to.get(e));
+				to.set(e, t);
+				int w = edgeWeights.get(p);
+				edgeWeights.set(p, edgeWeights.get(e));
+				edgeWeights.set(e, w);
+				place.set(e, place.get(p));
+				place.set(p, p);
+				p = place.get(e);
+			}
+		}
+		targets = to;
+		weights = edgeWeights;
+
+		vertices = builder.vertices;
+		edgeCount = m;
+		maxWeight = max;
+		observerList = new ObserverList<>();
+	}
+
+	/**
+	 * <P>Collects the vertices and edges of an OffHeapGraph and then
+	 * builds it in one go, in the same way as WeightedGraph.Builder.
+	 * The edges are kept off the heap from the start, so graphs larger
+	 * than the heap can be built as long as their vertices fit.</P>
+	 *
+	 * <P>Vertices are numbered 0, 1, 2, ... in the order they are added,
+	 * and addEdgeByIndex and addEdges refer to them by those numbers.
+	 * Those edges are only checked by build().  A Builder can only build
+	 * one graph.</P>
+	 *
+	 * @param <V>
+	 */
+	public static final class Builder<V> {
+
+		private VertexIndex<V> vertices;
+		private DirectIntArray from;
+		private DirectIntArray to;
+		private DirectIntArray weights;
+		private int edgeCount;
+
+		/** Creates an empty builder. */
+		public Builder() {
+			this(16, 1024);
+		}
+
+		/** Creates an empty builder with room for the given numbers of
+		 * vertices and edges.  More can still be added.
+		 *
+		 * @param expectedVertices number of vertices to make room for
+		 * @param expectedEdges number of edges to make room for
+		 */
+		public Builder(int expectedVertices, int expectedEdges) {
+			if (expectedVertices < 0 || expectedEdges < 0) {
+				throw new IllegalArgumentException();
+			}
+			vertices = new VertexIndex<>(expectedVertices);
+			from = new DirectIntArray(expectedEdges);
+			to = new DirectIntArray(expectedEdges);
+			weights = new DirectIntArray(expectedEdges);
+		}
+
+		/** Adds a vertex, numbered with the number of vertices added
+		 * before it.
+		 *
+		 * @param vertex vertex to be added to the graph
+		 * @return this builder
+		 * @throws IllegalArgumentException if the vertex has already
+		 * been added
+		 */
+		public Builder<V> addVertex(V vertex) {
+			if (open().add(vertex) < 0) {
+				throw new IllegalArgumentException();
+			}
+			return this;
+		}
+
+		/** Returns the number a vertex was given by addVertex.
+		 *
+		 * @param vertex the vertex to look up
+		 * @return its number, or -1 if it has not been added
+		 */
+		public int indexOf(V vertex) {
+			return open().indexOf(vertex);
+		}
+
+		/** Returns the number of vertices added so far.
+		 * @return number of vertices
+		 */
+		public int vertexCount() {
+			return open().size();
+		}
+
+		/** Adds an edge between two vertices that have been added.
+		 *
+		 * @param from the vertex the edge leads from
+		 * @param to the vertex the edge leads to
+		 * @param weight the (non-negative) weight of this edge
+		 * @return this builder
+		 * @throws IllegalArgumentException when either vertex has not
+		 * been added, or the weight is negative
+		 */
+		public Builder<V> addEdge(V from, V to, int weight) {
+			int f = open().indexOf(from);
+			int t = vertices.indexOf(to);
+			if (f < 0 || t < 0 || weight < 0) {
+				throw new IllegalArgumentException();
+			}
+			return addEdgeByIndex(f, t, weight);
+		}
+
+		/** Adds an edge between the vertices with the given numbers.
+		 * The edge is checked by build().
+		 *
+		 * @param from number of the vertex the edge leads from
+		 * @param to number of the vertex the edge leads to
+		 * @param weight the (non-negative) weight of this edge
+		 * @return this builder
+		 */
+		public Builder<V> addEdgeByIndex(int from, int to, int weight) {
+			ensureRoom(1);
+			this.from.set(edgeCount, from);
+			this.to.set(edgeCount, to);
+			weights.set(edgeCount, weight);
+			edgeCount++;
+			return this;
+		}
+
+		/** Adds the edges from[i] -> to[i] with weight weights[i], for
+		 * i from 0 to count - 1, referring to vertices by number.  The
+		 * edges are checked by build().
+		 *
+		 * @param from numbers of the vertices the edges lead from
+		 * @param to numbers of the vertices the edges lead to
+		 * @param weights the (non-negative) weights of the edges
+		 * @param count number of edges to add
+		 * @return this builder
+		 */
+		public Builder<V> addEdges(int[] from, int[] to, int[] weights, int count) {
+			ensureRoom(count);
+			for (int i = 0; i < count; i++) {
+				this.from.set(edgeCount + i, from[i]);
+				this.to.set(edgeCount + i, to[i]);
+				this.weights.set(edgeCount + i, weights[i]);
+			}
+			edgeCount += count;
+			return this;
+		}
+
+		/** Builds the graph.  The builder cannot be used afterwards.
+		 *
+		 * @return a new graph with the vertices and edges added, and no
+		 * observers
+		 * @throws IllegalArgumentException if an edge refers to a vertex
+		 * that was not added, or has a negative weight
+		 */
+		public OffHeapGraph<V> build() {
+			open();
+			OffHeapGraph<V> graph = new OffHeapGraph<>(this);
+			vertices = null;
+			from = null;
+			to = null;
+			weights = null;
+			return graph;
+		}
+
+		private VertexIndex<V> open() {
+			if (vertices == null) {
+				throw new IllegalStateException();
+			}
+			return vertices;
+		}
+
+		private void ensureRoom(int count) {
+			open();
+			long needed = (long) edgeCount + count;
+			if (needed > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("too many edges");
+			}
+			// The arrays double while they are small, then grow a chunk
+			// at a time without copying
+			from.ensureCapacity(needed);
+			to.ensureCapacity(needed);
+			weights.ensureCapacity(needed);
+		}
+	}
+
+	/** Add a GraphAlgorithmObserver to the collection maintained
+	 * by this graph.
+	 *
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer) {
+		observerList.add(observer);
+	}
+
+	/** Add a GraphAlgorithmObserver that is only told about some kinds
+	 * of event.  See WeightedGraph.addObserver(observer, events).
+	 *
+	 * @param observer
+	 * @param events the kinds of event to notify the observer of
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer, Set<SearchEvent> events) {
+		observerList.add(observer, events);
+	}
+
+	/** Returns the number of vertices in the graph.
+	 * @return number of vertices
+	 */
+	public int vertexCount() {
+		return vertices.size();
+	}
+
+	/** Returns the number of edges in the graph.
+	 * @return number of edges
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	/** Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return vertices.indexOf(vertex) >= 0;
+	}
+
+	/**
+	 * <P>Returns weight of the edge connecting one vertex
+	 * to another.  Returns null if the edge does not
+	 * exist.</P>
+	 *
+	 * @param from vertex where edge begins
+	 * @param to vertex where edge terminates
+	 * @return weight of the edge, or null if there is
+	 * no edge connecting these vertices
+	 * @throws IllegalArgumentException if either of
+	 * the vertices specified are not in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		ensureOpen();
+		for (int e = offsets.get(f); e < offsets.get(f + 1); e++) {
+			if (targets.get(e) == t) {
+				return weights.get(e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * <P>Breadth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoBFS.</P>
+	 *
+	 * @param start vertex where search begins
+	 * @param end the algorithm terminates just after this vertex
+	 * is visited
+	 */
+	public void DoBFS(V start, V end) {
+		ensureOpen();
+		GraphSearch.breadthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Depth-First-Search from "start" to "end", with the same
+	 * observer notifications as WeightedGraph.DoDFS.</P>
+	 *
+	 * @param start vertex where search begins
+	 * @param end the algorithm terminates just after this vertex
+	 * is visited
+	 */
+	public void DoDFS(V start, V end) {
+		ensureOpen();
+		GraphSearch.depthFirst(this, requireIndex(start), requireIndex(end), observerList);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start", with the same observer
+	 * notifications as WeightedGraph.DoDijsktra.</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 */
+	public void DoDijsktra(V start, V end) {
+		DoDijsktra(start, end, DijkstraMode.ALL_VERTICES);
+	}
+
+	/**
+	 * <P>Dijkstra's algorithm from "start" to "end", doing only as much
+	 * work as the mode asks for.  See WeightedGraph.DoDijsktra(V, V,
+	 * DijkstraMode).  No reversed edges are kept, so BIDIRECTIONAL
+	 * searches forwards only, as POINT_TO_POINT does.</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 * @param mode how far the search needs to go
+	 */
+	public void DoDijsktra(V start, V end, DijkstraMode mode) {
+		ensureOpen();
+		GraphSearch.dijkstra(this, requireIndex(start), requireIndex(end), mode != DijkstraMode.ALL_VERTICES,
+				observerList);
+	}
+
+	/**
+	 * <P>A* search from "start" to "end", with the same observer
+	 * notifications as WeightedGraph.DoAStar.</P>
+	 *
+	 * @param start vertex where the search will start
+	 * @param end vertex the search is trying to reach
+	 * @param heuristic estimates the remaining cost from a vertex to "end"
+	 */
+	public void DoAStar(V start, V end, Heuristic<? super V> heuristic) {
+		ensureOpen();
+		GraphSearch.aStar(this, requireIndex(start), requireIndex(end), heuristic, observerList);
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every vertex.
+	 * No observers are notified.  See WeightedGraph.shortestPaths.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @return lowest costs and predecessors for every vertex
+	 * @throws IllegalArgumentException if the source is not in the graph
+	 */
+	public ShortestPathResult<V> shortestPaths(V source) {
+		ensureOpen();
+		return GraphSearch.shortestPaths(this, requireIndex(source), GraphSearch.newQueue(this));
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from each of the given sources
+	 * to every vertex, running the searches in parallel on the given
+	 * pool.  No observers are notified.</P>
+	 *
+	 * @param sources the vertices to search from
+	 * @param pool the threads to run the searches on
+	 * @return one result per distinct source, in the order the sources
+	 * were given
+	 * @throws IllegalArgumentException if a source is not in the graph
+	 */
+	public Map<V, ShortestPathResult<V>> shortestPathsFrom(Collection<? extends V> sources, ForkJoinPool pool) {
+		ensureOpen();
+		return GraphSearch.shortestPaths(this, sources, pool);
+	}
+
+	/** Lets go of the edges.  The graph cannot be searched afterwards. */
+	public void close() {
+		offsets = null;
+		targets = null;
+		weights = null;
+	}
+
+	private void ensureOpen() {
+		if (offsets == null) {
+			throw new IllegalStateException("graph is closed");
+		}
+	}
+
+	V vertexAt(int id) {
+		return vertices.get(id);
+	}
+
+	int indexOf(Object vertex) {
+		return vertices.indexOf(vertex);
+	}
+
+	int maxWeight() {
+		return maxWeight;
+	}
+
+	int degree(int v) {
+		return offsets.get(v + 1) - offsets.get(v);
+	}
+
+	int target(int v, int i) {
+		return targets.get(offsets.get(v) + i);
+	}
+
+	int weight(int v, int i) {
+		return weights.get(offsets.get(v) + i);
+	}
+}
@@ -0,0 +1,203 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * <P>Level-synchronous, direction-optimizing parallel breadth-first
+ * search (Beamer, Asanovic and Patterson).  All vertices at distance d
+ * from the source (the "frontier") are expanded in parallel before any
+ * vertex at distance d + 1.</P>
+ *
+ * <P>Each level is expanded in one of two directions:</P>
+ *
+ * <P>Top-down: every frontier vertex claims its unvisited out-neighbours,
+ * using an atomic compare-and-set on a shared visited bitmap so that
+ * each vertex gets exactly one parent.  This is cheap while the
+ * frontier is small.</P>
+ *
+ * <P>Bottom-up: every unvisited vertex looks through its in-neighbours
+ * for one that is in the frontier, and stops at the first it finds.
+ * When the frontier is a large part of the graph this examines far
+ * fewer edges than top-down.</P>
+ *
+ * <P>The search switches to bottom-up when the edges leaving the
+ * frontier outnumber the edges leaving unvisited vertices divided by
+ * ALPHA, and back to top-down when the frontier shrinks below
+ * 1 / BETA of the vertices.</P>
+ */
+final class ParallelBFS<V> {
+
+	// Tuning constants from the paper
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	// Vertices handled by one parallel task.  A multiple of 64, so that
+	// in bottom-up steps no two tasks write to the same bitmap word.
+	private static final int CHUNK = 4096;
+
+	private final IndexedGraph<V> graph;
+	private final IndexedGraph<V> reverse;
+	private final int n;
+	private final AtomicLongArray visited;
+	private final int[] hops;
+	private final int[] parent;
+
+	private ParallelBFS(IndexedGraph<V> graph, IndexedGraph<V> reverse) {
+		this.graph = graph;
+		this.reverse = reverse;
+		n = graph.vertexCount();
+		visited = new AtomicLongArray((n + 63) >>> 6);
+		hops = new int[n];
+		parent = new int[n];
+		Arrays.fill(hops, Integer.MAX_VALUE);
+		Arrays.fill(parent, -1);
+	}
+
+	/**
+	 * Runs the search on the given pool.  reverse must be graph with its
+	 * edges turned around.  If levelObserver is not null it is told about
+	 * each level once that level is complete.  The result's costs are hop
+	 * counts and its predecessors are BFS parents.
+	 */
+	static <V> ShortestPathResult<V> run(IndexedGraph<V> graph, IndexedGraph<V> reverse, int source,
+			ForkJoinPool pool, BFSLevelObserver<V> levelObserver) {
+		ParallelBFS<V> search = new ParallelBFS<>(graph, reverse);
+		search.search(source, pool, levelObserver);
+		return new ShortestPathResult<>(graph, source, search.hops, search.parent);
+	}
+
+	private void search(int source, ForkJoinPool pool, BFSLevelObserver<V> levelObserver) {
+		int[] frontier = {source};
+		visited.set(source >>> 6, 1L << source);
+		hops[source] = 0;
+
+		long unexploredEdges = graph.edgeCount() - graph.degree(source);
+		boolean bottomUp = false;
+		int level = 0;
+
+		while (frontier.length > 0) {
+			if (levelObserver != null) {
+				List<V> vertices = new ArrayList<>(frontier.length);
+				for (int v : frontier) {
+					vertices.add(graph.vertexAt(v));
+				}
+				levelObserver.notifyLevel(level, vertices);
+			}
+
+			long frontierEdges = 0;
+			for (int v : frontier) {
+				frontierEdges += graph.degree(v);
+			}
+			if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+				bottomUp = true;
+			} else if (bottomUp && frontier.length < n / BETA) {
+				bottomUp = false;
+			}
+
+			int[] next = bottomUp ? bottomUpStep(frontier, level, pool) : topDownStep(frontier, level, pool);
+			for (int v : next) {
+				unexploredEdges -= graph.degree(v);
+			}
+			frontier = next;
+			level++;
+		}
+	}
+
+	private int[] topDownStep(int[] frontier, int level, ForkJoinPool pool) {
+		int chunks = (frontier.length + CHUNK - 1) / CHUNK;
+		int[][] found = new int[chunks][];
+		pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] local = new int[16];
+			int count = 0;
+			int last = Math.min(frontier.length, (c + 1) * CHUNK);
+			for (int f = c * CHUNK; f < last; f++) {
+				int u = frontier[f];
+				int degree = graph.degree(u);
+				for (int i = 0; i < degree; i++) {
+					int v = graph.target(u, i);
+					if (claim(v)) {
+						hops[v] = level + 1;
+						parent[v] = u;
+						if (count == local.length) {
+							local = Arrays.copyOf(local, 2 * count);
+						}
+						local[count++] = v;
+					}
+				}
+			}
+			found[c] = Arrays.copyOf(local, count);
+		})).join();
+		return concatenate(found);
+	}
+
+	private int[] bottomUpStep(int[] frontier, int level, ForkJoinPool pool) {
+		long[] inFrontier = new long[(n + 63) >>> 6];
+		for (int v : frontier) {
+			inFrontier[v >>> 6] |= 1L << v;
+		}
+
+		int chunks = (n + CHUNK - 1) / CHUNK;
+		int[][] found = new int[chunks][];
+		pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] local = new int[16];
+			int count = 0;
+			int last = Math.min(n, (c + 1) * CHUNK);
+			for (int v = c * CHUNK; v < last; v++) {
+				if ((visited.get(v >>> 6) & (1L << v)) != 0) {
+					continue;
+				}
+				int degree = reverse.degree(v);
+				for (int i = 0; i < degree; i++) {
+					int u = reverse.target(v, i);
+					if ((inFrontier[u >>> 6] & (1L << u)) != 0) {
+						// No other task writes v's bitmap word in this step
+						claim(v);
+						hops[v] = level + 1;
+						parent[v] = u;
+						if (count == local.length) {
+							local = Arrays.copyOf(local, 2 * count);
+						}
+						local[count++] = v;
+						break;
+					}
+				}
+			}
+			found[c] = Arrays.copyOf(local, count);
+		})).join();
+		return concatenate(found);
+	}
+
+	/* Sets v's visited bit; true if this call was the one that set it */
+	private boolean claim(int v) {
+		int word = v >>> 6;
+		long bit = 1L << v;
+		while (true) {
+			long old = visited.get(word);
+			if ((old & bit) != 0) {
+				return false;
+			}
+			if (visited.compareAndSet(word, old, old | bit)) {
+				return true;
+			}
+		}
+	}
+
+	private static int[] concatenate(int[][] parts) {
+		int total = 0;
+		for (int[] part : parts) {
+			total += part.length;
+		}
+		int[] all = new int[total];
+		int at = 0;
+		for (int[] part : parts) {
+			System.arraycopy(part, 0, all, at, part.length);
+			at += part.length;
+		}
+		return all;
+	}
+}
@@ -0,0 +1,23 @@
+package graph;
+
+/**
+ * <P>The kinds of notification a search makes, for registering an
+ * observer for only some of them (see WeightedGraph.addObserver).  A
+ * search skips the work for any kind of notification no observer has
+ * asked for:  it does not fetch the vertex for a visit nobody watches,
+ * for example, or build the path when nobody wants it.</P>
+ */
+public enum SearchEvent {
+
+	/** notifyDFSHasBegun, notifyBFSHasBegun and notifyDijkstraHasBegun */
+	BEGIN,
+
+	/** notifyVisit, once per vertex visited by DFS or BFS */
+	VISIT,
+
+	/** notifyDijkstraVertexFinished, once per finished vertex */
+	VERTEX_FINISHED,
+
+	/** notifySearchIsOver and notifyDijkstraIsOver */
+	END
+}
@@ -0,0 +1,79 @@
+package graph;
+
+import java.util.List;
+
+/**
+ * <P>The result of a single-source shortest path computation:  the
+ * lowest cost from the source to every vertex of the graph, and the
+ * predecessor of each vertex on a lowest cost path.  Both are kept in
+ * int arrays indexed by vertex id.</P>
+ *
+ * <P>A ShortestPathResult never changes once it has been computed, so
+ * it can be shared freely between threads, and one computation can
+ * answer questions about any number of destinations.  Paths are only
+ * built when pathTo asks for one.</P>
+ *
+ * @param <V>
+ */
+public class ShortestPathResult<V> {
+
+	private final IndexedGraph<V> graph;
+	private final int source;
+
+	// Integer.MAX_VALUE marks an unreachable vertex
+	private final int[] cost;
+
+	// -1 for the source and for unreachable vertices
+	private final int[] pred;
+
+	ShortestPathResult(IndexedGraph<V> graph, int source, int[] cost, int[] pred) {
+		this.graph = graph;
+		this.source = source;
+		this.cost = cost;
+		this.pred = pred;
+	}
+
+	/** Returns the vertex the paths start from.
+	 * @return the source vertex
+	 */
+	public V getSource() {
+		return graph.vertexAt(source);
+	}
+
+	/** Returns the cost of the lowest cost path from the source to
+	 * a vertex.
+	 *
+	 * @param vertex the destination
+	 * @return the cost, or null if the vertex cannot be reached
+	 * @throws IllegalArgumentException if the vertex is not in the graph
+	 */
+	public Integer costTo(V vertex) {
+		int c = cost[graph.requireIndex(vertex)];
+		return c == Integer.MAX_VALUE ? null : c;
+	}
+
+	/** Returns the vertex just before the given one on a lowest cost
+	 * path from the source.
+	 *
+	 * @param vertex the destination
+	 * @return its predecessor, or null for the source itself and for
+	 * vertices that cannot be reached
+	 * @throws IllegalArgumentException if the vertex is not in the graph
+	 */
+	public V predecessorOf(V vertex) {
+		int p = pred[graph.requireIndex(vertex)];
+		return p < 0 ? null : graph.vertexAt(p);
+	}
+
+	/** Returns a lowest cost path from the source to a vertex.  The path
+	 * is built from the predecessors each time this is called.
+	 *
+	 * @param vertex the destination
+	 * @return the vertices of the path, from the source to the
+	 * destination; empty if the destination cannot be reached
+	 * @throws IllegalArgumentException if the vertex is not in the graph
+	 */
+	public List<V> pathTo(V vertex) {
+		return GraphSearch.path(graph, pred, cost, graph.requireIndex(vertex));
+	}
+}
@@ -0,0 +1,67 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>Scratch space for one thread's DFS and BFS runs on one graph.</P>
+ *
+ * <P>A vertex counts as marked when its stamp equals the current
+ * epoch, so starting a new traversal is just a matter of bumping the
+ * epoch.  No per-vertex clearing (or allocation) is needed between
+ * runs, which means a search that stops early costs time proportional
+ * to what it touched, not to the size of the graph.  The queue/stack
+ * buffer is reused in the same way.</P>
+ *
+ * <P>A Traversal is only good for one search at a time, so an
+ * observer must not start another DFS or BFS on the same graph from
+ * inside a notification.</P>
+ */
+final class Traversal {
+
+	private int[] stamp = new int[0];
+	private int epoch;
+	private int[] buffer = new int[16];
+
+	/** Starts a new traversal in which no vertex is marked.
+	 *
+	 * @param vertexCount number of vertices the graph has now
+	 */
+	void begin(int vertexCount) {
+		if (stamp.length < vertexCount) {
+			stamp = new int[Math.max(vertexCount, 2 * stamp.length)];
+			epoch = 0;
+		}
+		epoch++;
+		if (epoch == 0) {  // wrapped around, old stamps could collide
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+
+	/** Marks a vertex.
+	 *
+	 * @param v vertex id
+	 * @return true if the vertex was not marked before
+	 */
+	boolean mark(int v) {
+		if (stamp[v] == epoch) {
+			return false;
+		}
+		stamp[v] = epoch;
+		return true;
+	}
+
+	boolean isMarked(int v) {
+		return stamp[v] == epoch;
+	}
+
+	/** Returns the queue/stack buffer, grown to at least the given
+	 * length.  Existing contents are kept when it grows.
+	 */
+	int[] buffer(int length) {
+		if (buffer.length < length) {
+			buffer = Arrays.copyOf(buffer, Math.max(length, 2 * buffer.length));
+		}
+		return buffer;
+	}
+}
@@ -0,0 +1,78 @@
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import maze.Juncture;
+
+/**
+ * <P>Turns the vertices of a graph into bytes and back, so that a graph
+ * can be saved to a file and opened as a MappedGraph.</P>
+ *
+ * <P>Two vertices must be equal exactly when their encodings are equal,
+ * because a MappedGraph finds a vertex by comparing encodings.</P>
+ *
+ * @param <V>
+ */
+public interface VertexCodec<V> {
+
+	/** Encodes a vertex.
+	 *
+	 * @param vertex the vertex to encode
+	 * @return its bytes
+	 */
+	public byte[] encode(V vertex);
+
+	/** Decodes a vertex.
+	 *
+	 * @param bytes holds exactly the bytes encode returned, from its
+	 * position to its limit
+	 * @return the vertex
+	 */
+	public V decode(ByteBuffer bytes);
+
+	/** Encodes Strings as UTF-8.
+	 * @return a codec for Strings
+	 */
+	public static VertexCodec<String> strings() {
+		return new VertexCodec<String>() {
+			public byte[] encode(String vertex) {
+				return vertex.getBytes(StandardCharsets.UTF_8);
+			}
+
+			public String decode(ByteBuffer bytes) {
+				return StandardCharsets.UTF_8.decode(bytes).toString();
+			}
+		};
+	}
+
+	/** Encodes Integers as four bytes.
+	 * @return a codec for Integers
+	 */
+	public static VertexCodec<Integer> integers() {
+		return new VertexCodec<Integer>() {
+			public byte[] encode(Integer vertex) {
+				return ByteBuffer.allocate(4).putInt(vertex).array();
+			}
+
+			public Integer decode(ByteBuffer bytes) {
+				return bytes.getInt();
+			}
+		};
+	}
+
+	/** Encodes Junctures as their X and Y coordinates.
+	 * @return a codec for Junctures
+	 */
+	public static VertexCodec<Juncture> junctures() {
+		return new VertexCodec<Juncture>() {
+			public byte[] encode(Juncture vertex) {
+				return ByteBuffer.allocate(8).putInt(vertex.getX()).putInt(vertex.getY()).array();
+			}
+
+			public Juncture decode(ByteBuffer bytes) {
+				return new Juncture(bytes.getInt(), bytes.getInt());
+			}
+		};
+	}
+}
@@ -0,0 +1,78 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <P>Interns the vertices of a graph:  each vertex is given a dense
+ * integer id (0, 1, 2, ...) the first time it is added, and keeps
+ * that id for as long as the graph exists.</P>
+ *
+ * <P>The graph algorithms work entirely with these ids, so their
+ * state can be kept in primitive arrays.  The vertex objects
+ * themselves (and their hashCode and equals methods) are only used
+ * when a vertex passes through the public API of a graph.</P>
+ */
+final class VertexIndex<V> {
+
+	private final HashMap<V, Integer> ids;
+	private final ArrayList<V> vertices;
+
+	VertexIndex() {
+		ids = new HashMap<>();
+		vertices = new ArrayList<>();
+	}
+
+	/** Makes room for the given number of vertices up front. */
+	VertexIndex(int expected) {
+		ids = new HashMap<>((int) Math.min(1 << 30, expected * 4L / 3 + 1));
+		vertices = new ArrayList<>(expected);
+	}
+
+	private VertexIndex(VertexIndex<V> other) {
+		ids = new HashMap<>(other.ids);
+		vertices = new ArrayList<>(other.vertices);
+	}
+
+	/** Gives the vertex the next free id.
+	 *
+	 * @param vertex vertex to intern
+	 * @return the new id, or -1 if the vertex already has one
+	 */
+	int add(V vertex) {
+		Integer existing = ids.putIfAbsent(vertex, vertices.size());
+		if (existing != null) {
+			return -1;
+		}
+		vertices.add(vertex);
+		return vertices.size() - 1;
+	}
+
+	/** Returns the id of a vertex, or -1 if it has none.
+	 *
+	 * @param vertex vertex to look up
+	 * @return its id, or -1
+	 */
+	int indexOf(Object vertex) {
+		Integer id = ids.get(vertex);
+		return id == null ? -1 : id;
+	}
+
+	/** Returns the vertex with the given id.
+	 *
+	 * @param id an id handed out by add
+	 * @return the vertex
+	 */
+	V get(int id) {
+		return vertices.get(id);
+	}
+
+	int size() {
+		return vertices.size();
+	}
+
+	/** Returns an independent copy, used for graph snapshots. */
+	VertexIndex<V> copy() {
+		return new VertexIndex<>(this);
+	}
+}
@@ -0,0 +1,19 @@
+package graph;
+
+/**
+ * <P>The priority queue of vertex ids used by the Dijkstra searches in
+ * GraphSearch.  IndexedMinHeap works for any weights; BucketQueue is
+ * faster when every edge weight is a small integer.</P>
+ */
+interface VertexQueue {
+
+	boolean isEmpty();
+
+	/** Inserts the vertex if it is absent, or lowers its priority if the
+	 * new priority is smaller than the current one.
+	 */
+	void insertOrDecrease(int vertex, int priority);
+
+	/** Removes and returns a vertex with the smallest priority. */
+	int removeMin();
+}
@@ -1,6 +1,9 @@
 package graph;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <P>This class represents a general "directed graph", which could 
@@ -20,7 +23,7 @@ import java.util.*;
  * performance of the graph algorithms to update the observers
  * on how the algorithms are progressing.</P>
  */
-public class WeightedGraph<V> {
+public class WeightedGraph<V> extends IndexedGraph<V> {
 
 	/* STUDENTS:  You decide what data structure(s) to use to
 	 * implement this class.
@@ -32,26 +35,58 @@ public class WeightedGraph<V> {
 
 	// Resource on creating directed graphs: https://algorithms.tutorialhorizon.com/weighted-graph-implementation-java/
 
-	protected class Edge
-	{
-		V source;
-		V destination;
-		int weight;
-
-		public Edge(V source, V destination, int weight)
-		{
-			this.source = source;
-			this.destination = destination;
-			this.weight = weight;
-		}
-	}
+	/* How the graph is stored:
+	Every vertex is given a dense id by the VertexIndex when it is added.
+	The edges leaving vertex i are targets[i][0 .. degree[i] - 1], with
+	the matching weights in weights[i].  The algorithms only ever see
+	these ids, never the vertex objects.
+	*/
+	private VertexIndex<V> vertices;
+	private int[][] targets;
+	private int[][] weights;
+	private int[] degree;
+	private int edgeCount;
+	private int maxWeight;
+
+	/* Edge lookup for high-degree vertices:
+	edgeIndex[i] stays null while vertex i has at most INDEXED_DEGREE
+	edges, since scanning a few ints is as fast as hashing.  Beyond that
+	it is an open-addressing table keyed by target id, holding the
+	position of the edge in targets[i] plus one (0 marks an empty slot).
+	*/
+	private static final int INDEXED_DEGREE = 8;
+	private int[][] edgeIndex;
 
-	// These are the verticies we have to work with
-	/* How the maps is storing information
-	Key: Vertex1
-	Value: [Edge1, Edge2, ....]
+	/* The edges entering each vertex, kept only while some
+	DynamicShortestPaths is tracking this graph (null otherwise).  The
+	edges entering vertex i come from sources[i][0 .. inDegree[i] - 1],
+	with the matching weights in sourceWeights[i], in no special order.
+	*/
+	private int[][] sources;
+	private int[][] sourceWeights;
+	private int[] inDegree;
+	private final List<DynamicShortestPaths<V>> trackers = new ArrayList<>();
+
+	// Frozen copy used by the algorithms that need the reversed edges
+	// or a read-only view, thrown away whenever a vertex or edge is added
+	private CompactGraph<V> snapshot;
+
+	/* Shortest path trees from recent sources, most recently used last.
+	version counts the changes made to the graph; the trees are only
+	good while cacheVersion is still equal to it.
 	*/
-	protected HashMap<V, LinkedList<Edge>> graph;
+	private static final int DEFAULT_PATH_CACHE_CAPACITY = 8;
+	private int version;
+	private int cacheVersion;
+	private int pathCacheCapacity = DEFAULT_PATH_CACHE_CAPACITY;
+	private final LinkedHashMap<Integer, ShortestPathResult<V>> pathCache =
+			new LinkedHashMap<Integer, ShortestPathResult<V>>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathResult<V>> eldest) {
+			return size() > pathCacheCapacity;
+		}
+	};
+	private long pathCacheHits;
+	private long pathCacheMisses;
 	
 	/* Collection of observers.  Be sure to initialize this list
 	 * in the constructor.  The method "addObserver" will be
@@ -59,16 +94,238 @@ public class WeightedGraph<V> {
 	 * (DFS, BFS, and Dijkstra) will notify these observers to let 
 	 * them know how the algorithms are progressing. 
 	 */
-	private Collection<GraphAlgorithmObserver<V>> observerList;
+	private ObserverList<V> observerList;
 	
 
 	/** Initialize the data structures to "empty", including
 	 * the collection of GraphAlgorithmObservers (observerList).
 	 */
 	public WeightedGraph() {
-		observerList = new LinkedList<>();
-		graph = new HashMap<>();
+		observerList = new ObserverList<>();
+		vertices = new VertexIndex<>();
+		targets = new int[16][];
+		weights = new int[16][];
+		degree = new int[16];
+		edgeIndex = new int[16][];
+
+	}
+
+	/** Builds the graph a Builder has collected, with no observers.
+	 * Each vertex gets arrays holding exactly its edges, in the order
+	 * they were given to the builder.
+	 *
+	 * @param builder the vertices and edges of the new graph
+	 * @throws IllegalArgumentException if an edge refers to a vertex
+	 * that was not added, or has a negative weight
+	 * @throws IllegalStateException if the builder has already been used
+	 */
+	protected WeightedGraph(Builder<V> builder) {
+		if (builder.vertices == null) {
+			throw new IllegalStateException();
+		}
+		int n = builder.vertices.size();
+		int m = builder.edgeCount;
+		int[] from = builder.from;
+		int[] to = builder.to;
+		int[] edgeWeights = builder.weights;
+
+		// One pass checks the edges and counts the degrees
+		int capacity = Math.max(n, 16);
+		degree = new int[capacity];
+		for (int e = 0; e < m; e++) {
+			if (from[e] < 0 || from[e] >= n || to[e] < 0 || to[e] >= n || edgeWeights[e] < 0) {
+				throw new IllegalArgumentException();
+			}
+			degree[from[e]]++;
+			maxWeight = Math.max(maxWeight, edgeWeights[e]);
+		}
+
+		targets = new int[capacity][];
+		weights = new int[capacity][];
+		edgeIndex = new int[capacity][];
+		for (int v = 0; v < n; v++) {
+			targets[v] = new int[degree[v]];
+			weights[v] = new int[degree[v]];
+			degree[v] = 0;
+		}
+		for (int e = 0; e < m; e++) {
+			int f = from[e];
+			int d = degree[f]++;
+			targets[f][d] = to[e];
+			weights[f][d] = edgeWeights[e];
+		}
+		for (int v = 0; v < n; v++) {
+			if (degree[v] > INDEXED_DEGREE) {
+				rebuildEdgeIndex(v);
+			}
+		}
+
+		vertices = builder.vertices;
+		edgeCount = m;
+		observerList = new ObserverList<>();
+		builder.vertices = null;
+		builder.from = null;
+		builder.to = null;
+		builder.weights = null;
+	}
+
+	/**
+	 * <P>Collects the vertices and edges of a WeightedGraph and then
+	 * builds it in one go.  This is much faster than addVertex and
+	 * addEdge for large graphs:  edges are stored in flat int arrays
+	 * until build() is called, which checks them all in one pass and
+	 * gives every vertex arrays of exactly the right size.</P>
+	 *
+	 * <P>Vertices are numbered 0, 1, 2, ... in the order they are added,
+	 * and addEdgeByIndex and addEdges refer to them by those numbers,
+	 * so edges can be added without looking the vertices up.  Those
+	 * edges are only checked by build().  A Builder can only build one
+	 * graph.</P>
+	 *
+	 * @param <V>
+	 */
+	public static final class Builder<V> {
+
+		private VertexIndex<V> vertices;
+		private int[] from;
+		private int[] to;
+		private int[] weights;
+		private int edgeCount;
+
+		/** Creates an empty builder. */
+		public Builder() {
+			this(16, 16);
+		}
+
+		/** Creates an empty builder with room for the given numbers of
+		 * vertices and edges.  More can still be added.
+		 *
+		 * @param expectedVertices number of vertices to make room for
+		 * @param expectedEdges number of edges to make room for
+		 */
+		public Builder(int expectedVertices, int expectedEdges) {
+			if (expectedVertices < 0 || expectedEdges < 0) {
+				throw new IllegalArgumentException();
+			}
+			vertices = new VertexIndex<>(expectedVertices);
+			from = new int[Math.max(expectedEdges, 16)];
+			to = new int[from.length];
+			weights = new int[from.length];
+		}
 
+		/** Adds a vertex, numbered with the number of vertices added
+		 * before it.
+		 *
+		 * @param vertex vertex to be added to the graph
+		 * @return this builder
+		 * @throws IllegalArgumentException if the vertex has already
+		 * been added
+		 */
+		public Builder<V> addVertex(V vertex) {
+			if (open().add(vertex) < 0) {
+				throw new IllegalArgumentException();
+			}
+			return this;
+		}
+
+		/** Returns the number a vertex was given by addVertex.
+		 *
+		 * @param vertex the vertex to look up
+		 * @return its number, or -1 if it has not been added
+		 */
+		public int indexOf(V vertex) {
+			return open().indexOf(vertex);
+		}
+
+		/** Returns the number of vertices added so far.
+		 * @return number of vertices
+		 */
+		public int vertexCount() {
+			return open().size();
+		}
+
+		/** Adds an edge between two vertices that have been added.
+		 *
+		 * @param from the vertex the edge leads from
+		 * @param to the vertex the edge leads to
+		 * @param weight the (non-negative) weight of this edge
+		 * @return this builder
+		 * @throws IllegalArgumentException when either vertex has not
+		 * been added, or the weight is negative
+		 */
+		public Builder<V> addEdge(V from, V to, int weight) {
+			int f = open().indexOf(from);
+			int t = vertices.indexOf(to);
+			if (f < 0 || t < 0 || weight < 0) {
+				throw new IllegalArgumentException();
+			}
+			return addEdgeByIndex(f, t, weight);
+		}
+
+		/** Adds an edge between the vertices with the given numbers.
+		 * The edge is checked by build().
+		 *
+		 * @param from number of the vertex the edge leads from
+		 * @param to number of the vertex the edge leads to
+		 * @param weight the (non-negative) weight of this edge
+		 * @return this builder
+		 */
+		public Builder<V> addEdgeByIndex(int from, int to, int weight) {
+			ensureRoom(1);
+			this.from[edgeCount] = from;
+			this.to[edgeCount] = to;
+			weights[edgeCount] = weight;
+			edgeCount++;
+			return this;
+		}
+
+		/** Adds the edges from[i] -> to[i] with weight weights[i], for
+		 * i from 0 to count - 1, referring to vertices by number.  The
+		 * edges are checked by build().
+		 *
+		 * @param from numbers of the vertices the edges lead from
+		 * @param to numbers of the vertices the edges lead to
+		 * @param weights the (non-negative) weights of the edges
+		 * @param count number of edges to add
+		 * @return this builder
+		 */
+		public Builder<V> addEdges(int[] from, int[] to, int[] weights, int count) {
+			ensureRoom(count);
+			System.arraycopy(from, 0, this.from, edgeCount, count);
+			System.arraycopy(to, 0, this.to, edgeCount, count);
+			System.arraycopy(weights, 0, this.weights, edgeCount, count);
+			edgeCount += count;
+			return this;
+		}
+
+		/** Builds the graph.  The builder cannot be used afterwards.
+		 *
+		 * @return a new graph with the vertices and edges added, and no
+		 * observers
+		 * @throws IllegalArgumentException if an edge refers to a vertex
+		 * that was not added, or has a negative weight
+		 */
+		public WeightedGraph<V> build() {
+			return new WeightedGraph<>(this);
+		}
+
+		private VertexIndex<V> open() {
+			if (vertices == null) {
+				throw new IllegalStateException();
+			}
+			return vertices;
+		}
+
+		private void ensureRoom(int count) {
+			open();
+			if (count > from.length - edgeCount) {
+				int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+						Math.max(2L * from.length, (long) edgeCount + count));
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+			}
+		}
 	}
 
 	/** Add a GraphAlgorithmObserver to the collection maintained
@@ -80,6 +337,18 @@ public class WeightedGraph<V> {
 		observerList.add(observer);
 	}
 
+	/** Add a GraphAlgorithmObserver that is only told about some kinds
+	 * of event.  The searches leave out all of the work for an event
+	 * that no observer wants, so an observer that only needs the final
+	 * path, say, costs almost nothing during the search itself.
+	 * 
+	 * @param observer
+	 * @param events the kinds of event to notify the observer of
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer, Set<SearchEvent> events) {
+		observerList.add(observer, events);
+	}
+
 	/** Add a vertex to the graph.  If the vertex is already in the
 	 * graph, throw an IllegalArgumentException.
 	 * 
@@ -88,12 +357,29 @@ public class WeightedGraph<V> {
 	 * the graph
 	 */
 	public void addVertex(V vertex) {
-		if(graph.containsKey(vertex)){
+		int id = vertices.add(vertex);
+		if (id < 0) {
 			throw new IllegalArgumentException();
-		}else{
-			graph.put(vertex, null); // This can either be null or an empty list. (empty list would get rid of an if statement in add edge)
 		}
-
+		if (id == degree.length) {
+			int capacity = 2 * degree.length;
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+			degree = Arrays.copyOf(degree, capacity);
+			edgeIndex = Arrays.copyOf(edgeIndex, capacity);
+			if (inDegree != null) {
+				sources = Arrays.copyOf(sources, capacity);
+				sourceWeights = Arrays.copyOf(sourceWeights, capacity);
+				inDegree = Arrays.copyOf(inDegree, capacity);
+			}
+		}
+		targets[id] = new int[4];
+		weights[id] = new int[4];
+		if (inDegree != null) {
+			sources[id] = new int[4];
+			sourceWeights[id] = new int[4];
+		}
+		modified();
 	}
 	
 	/** Searches for a given vertex.
@@ -102,10 +388,7 @@ public class WeightedGraph<V> {
 	 * @return true if the vertex is in the graph, false otherwise.
 	 */
 	public boolean containsVertex(V vertex) {
-		if(graph.containsKey(vertex)){
-			return true;
-		}
-		return false;
+		return vertices.indexOf(vertex) >= 0;
 	}
 
 	/** 
@@ -127,25 +410,207 @@ public class WeightedGraph<V> {
 	 * is not in the graph, or the weight is negative.
 	 */
 	public void addEdge(V from, V to, Integer weight) {
-		// Check for both source and destination
-		if(graph.containsKey(from) || graph.containsKey(to) || weight >= 0)
-		{
-			// Check if source already contains linked list
-			if(graph.get(from) == null) // Then we need to create a list
-			{
-				//graph.put(from, new LinkedList<Edge>(new Edge(from, to, weight)));
-				graph.put(from, new LinkedList<>());
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		if (weight < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		int d = degree[f];
+		if (d == targets[f].length) {
+			targets[f] = Arrays.copyOf(targets[f], Math.max(4, 2 * d));
+			weights[f] = Arrays.copyOf(weights[f], Math.max(4, 2 * d));
+		}
+		targets[f][d] = t;
+		weights[f][d] = weight;
+		degree[f] = d + 1;
+		edgeCount++;
+		maxWeight = Math.max(maxWeight, weight);
+		modified();
+
+		if (edgeIndex[f] != null && 2 * (d + 1) <= edgeIndex[f].length) {
+			indexEdge(edgeIndex[f], targets[f], d);
+		} else if (d + 1 > INDEXED_DEGREE) {
+			rebuildEdgeIndex(f);
+		}
+
+		if (inDegree != null) {
+			addSource(t, f, weight);
+		}
+		for (DynamicShortestPaths<V> tracker : trackers) {
+			tracker.edgeImproved(f, t, weight);
+		}
+	}
 
+	/**
+	 * <P>Changes the weight of the edge from one vertex to another.  If
+	 * there is more than one such edge, the one getWeight reports is
+	 * changed.</P>
+	 *
+	 * @param from the vertex the edge leads from
+	 * @param to the vertex the edge leads to
+	 * @param weight the new (non-negative) weight of the edge
+	 * @throws IllegalArgumentException when either vertex is not in the
+	 * graph, there is no edge between them, or the weight is negative.
+	 */
+	public void updateWeight(V from, V to, Integer weight) {
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		int i = findEdge(f, t);
+		if (i < 0 || weight < 0) {
+			throw new IllegalArgumentException();
+		}
+		int old = weights[f][i];
+		if (old == weight) {
+			return;
+		}
+		weights[f][i] = weight;
+		maxWeight = Math.max(maxWeight, weight);
+		modified();
+
+		if (inDegree != null) {
+			int k = findSource(t, f, old);
+			sourceWeights[t][k] = weight;
+		}
+		for (DynamicShortestPaths<V> tracker : trackers) {
+			if (weight < old) {
+				tracker.edgeImproved(f, t, weight);
+			} else {
+				tracker.edgeWorsened(f, t);
 			}
+		}
+	}
 
-			// Always add edge to the list
-			graph.get(from).add(new Edge(from, to, weight));
+	/**
+	 * <P>Removes the edge from one vertex to another.  If there is more
+	 * than one such edge, the one getWeight reports is removed.</P>
+	 *
+	 * @param from the vertex the edge leads from
+	 * @param to the vertex the edge leads to
+	 * @return true if an edge was removed, false if there was none
+	 * @throws IllegalArgumentException when either vertex is not in the
+	 * graph
+	 */
+	public boolean removeEdge(V from, V to) {
+		int f = requireIndex(from);
+		int t = requireIndex(to);
+		int i = findEdge(f, t);
+		if (i < 0) {
+			return false;
+		}
+		int old = weights[f][i];
+
+		// Later edges move down one place, so that the order the edges
+		// were added in (and so getWeight's choice) is kept
+		int d = degree[f] - 1;
+		System.arraycopy(targets[f], i + 1, targets[f], i, d - i);
+		System.arraycopy(weights[f], i + 1, weights[f], i, d - i);
+		degree[f] = d;
+		edgeCount--;
+		modified();
+		if (d > INDEXED_DEGREE) {
+			rebuildEdgeIndex(f);
+		} else {
+			edgeIndex[f] = null;
+		}
 
+		if (inDegree != null) {
+			int k = findSource(t, f, old);
+			int last = --inDegree[t];
+			sources[t][k] = sources[t][last];
+			sourceWeights[t][k] = sourceWeights[t][last];
 		}
-		else
-		{
-			throw new IllegalArgumentException();
+		for (DynamicShortestPaths<V> tracker : trackers) {
+			tracker.edgeWorsened(f, t);
+		}
+		return true;
+	}
+
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every vertex
+	 * and keeps them up to date as edges are added, removed and have
+	 * their weights changed.  Each change only repairs the paths it
+	 * affects; see DynamicShortestPaths.  No observers are notified.</P>
+	 *
+	 * <P>Every change to the graph costs a little more while paths are
+	 * being tracked, so close the result once it is no longer needed.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @return the paths, which follow later changes to the graph
+	 * @throws IllegalArgumentException if the source is not in the graph
+	 */
+	public DynamicShortestPaths<V> trackShortestPaths(V source) {
+		int s = requireIndex(source);
+		if (inDegree == null) {
+			buildSources();
+		}
+		DynamicShortestPaths<V> tracker = new DynamicShortestPaths<>(this, s);
+		trackers.add(tracker);
+		return tracker;
+	}
+
+	/* Called when a tracker is closed; the incoming edges are dropped
+	 * once nothing needs them.
+	 */
+	void untrack(DynamicShortestPaths<V> tracker) {
+		trackers.remove(tracker);
+		if (trackers.isEmpty()) {
+			sources = null;
+			sourceWeights = null;
+			inDegree = null;
+		}
+	}
+
+	int inDegree(int v) {
+		return inDegree[v];
+	}
+
+	/* The vertex that edge i entering v comes from */
+	int source(int v, int i) {
+		return sources[v][i];
+	}
+
+	int sourceWeight(int v, int i) {
+		return sourceWeights[v][i];
+	}
+
+	private void buildSources() {
+		int capacity = degree.length;
+		sources = new int[capacity][];
+		sourceWeights = new int[capacity][];
+		inDegree = new int[capacity];
+		int n = vertices.size();
+		for (int v = 0; v < n; v++) {
+			sources[v] = new int[4];
+			sourceWeights[v] = new int[4];
+		}
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < degree[v]; i++) {
+				addSource(targets[v][i], v, weights[v][i]);
+			}
+		}
+	}
+
+	private void addSource(int t, int f, int weight) {
+		int d = inDegree[t];
+		if (d == sources[t].length) {
+			sources[t] = Arrays.copyOf(sources[t], 2 * d);
+			sourceWeights[t] = Arrays.copyOf(sourceWeights[t], 2 * d);
+		}
+		sources[t][d] = f;
+		sourceWeights[t][d] = weight;
+		inDegree[t] = d + 1;
+	}
+
+	/* Position of an edge from f with the given weight among the edges
+	 * entering t; parallel edges with the same weight are interchangeable
+	 */
+	private int findSource(int t, int f, int weight) {
+		int k = 0;
+		while (sources[t][k] != f || sourceWeights[t][k] != weight) {
+			k++;
 		}
+		return k;
 	}
 
 	/** 
@@ -164,26 +629,110 @@ public class WeightedGraph<V> {
 	 * the vertices specified are not in the graph.
 	 */
 	public Integer getWeight(V from, V to) {
-		if (graph.containsKey(from) && graph.containsKey(to))
-		{
-			// Get list of edges from map using key "from"
-			LinkedList<Edge> temp = graph.get(from);
-
-			// Loop through those edges
-			for (Edge e : temp)
-			{
-				// if the edge source and dest equal the given from and to
-				if (e.source.equals(from) && e.destination.equals(to)) // Then we've found the correct edge
-				{
-					return e.weight;
+		int f = requireIndex(from);
+		int i = findEdge(f, requireIndex(to));
+		return i < 0 ? null : weights[f][i]; // null if none of the edges matched
+	}
+
+	/** Returns true if there is an edge from one vertex to another.
+	 * Like getWeight, this takes constant time.
+	 *
+	 * @param from vertex where edge begins
+	 * @param to vertex where edge terminates
+	 * @return true if the edge exists, false otherwise
+	 * @throws IllegalArgumentException if either of
+	 * the vertices specified are not in the graph.
+	 */
+	public boolean containsEdge(V from, V to) {
+		return findEdge(requireIndex(from), requireIndex(to)) >= 0;
+	}
+
+	/* Position of the first edge from f to t in targets[f], or -1 */
+	private int findEdge(int f, int t) {
+		int[] out = targets[f];
+		int[] table = edgeIndex[f];
+		if (table == null) {
+			for (int i = 0; i < degree[f]; i++) {
+				if (out[i] == t) {
+					return i;
 				}
 			}
-			return null; // None of the edges matched
+			return -1;
 		}
-		else
-		{
-			throw new IllegalArgumentException();
+		int mask = table.length - 1;
+		for (int slot = hash(t) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			if (out[table[slot] - 1] == t) {
+				return table[slot] - 1;
+			}
+		}
+		return -1;
+	}
+
+	/* Builds a table with room for twice the current degree of f */
+	private void rebuildEdgeIndex(int f) {
+		int[] table = new int[Integer.highestOneBit(4 * degree[f] - 1)];
+		for (int i = 0; i < degree[f]; i++) {
+			indexEdge(table, targets[f], i);
+		}
+		edgeIndex[f] = table;
+	}
+
+	/* Adds edge i to the table, unless an earlier edge has the same
+	 * target (getWeight reports the first one added).
+	 */
+	private static void indexEdge(int[] table, int[] out, int i) {
+		int mask = table.length - 1;
+		int slot = hash(out[i]) & mask;
+		while (table[slot] != 0) {
+			if (out[table[slot] - 1] == out[i]) {
+				return;
+			}
+			slot = (slot + 1) & mask;
 		}
+		table[slot] = i + 1;
+	}
+
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * <P>Returns an immutable CompactGraph holding the vertices and
+	 * edges this graph has right now.  Later changes to this graph
+	 * do not affect the snapshot.  The observers currently registered
+	 * with this graph are registered with the snapshot as well.</P>
+	 *
+	 * @return a compressed-sparse-row snapshot of this graph
+	 */
+	public CompactGraph<V> freeze() {
+		int n = vertices.size();
+		int[] offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] = offsets[i] + degree[i];
+		}
+
+		// The vertex ids carry over, so the edges are copied as they are
+		int[] csrTargets = new int[edgeCount];
+		int[] csrWeights = new int[edgeCount];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(targets[i], 0, csrTargets, offsets[i], degree[i]);
+			System.arraycopy(weights[i], 0, csrWeights, offsets[i], degree[i]);
+		}
+
+		return new CompactGraph<>(vertices.copy(), offsets, csrTargets, csrWeights, observerList);
+	}
+
+	/**
+	 * <P>Writes this graph to a file that MappedGraph.open can search
+	 * without reading it in.  See MappedGraph for the format.</P>
+	 *
+	 * @param file the file to write; replaced if it exists
+	 * @param codec encodes the vertices
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file, VertexCodec<? super V> codec) throws IOException {
+		MappedGraph.write(this, codec, file);
 	}
 
 	/** 
@@ -211,55 +760,7 @@ public class WeightedGraph<V> {
 	 * is visited
 	 */
 	public void DoBFS(V start, V end) {
-		for (GraphAlgorithmObserver<V> observer : observerList)
-		{
-			observer.notifyBFSHasBegun();
-		}
-
-		// Create visited
-		ArrayList<V> visitedSet = new ArrayList<>();
-
-		// Create Queue
-		Queue<V> queue = new LinkedList<>();
-
-		queue.add(start);
-
-		boolean reachedEnd = false;
-
-		while(!queue.isEmpty() && reachedEnd == false)
-		{
-			// Grab head of queue and remove it
-			V current = queue.remove();
-
-			// If final vertex has been reached
-			if (current.equals(end)) {
-				// Notify observers
-				for (GraphAlgorithmObserver<V> observer : observerList)
-				{
-					observer.notifySearchIsOver();
-				}
-				reachedEnd = true;
-			}
-			else if (!visitedSet.contains(current)) { // Not at last vertex, prevent duplicates
-				// Add current to visited set
-				visitedSet.add(current);
-
-				for (GraphAlgorithmObserver<V> observer : observerList)
-				{
-					observer.notifyVisit(current);
-				}
-
-				// Loop through all adjacent
-				LinkedList<Edge> adjacencyList = graph.get(current);
-				for (Edge edge : adjacencyList) {
-					// If the adjacent vector (edge.destination) hasn't been visited
-					if (!visitedSet.contains(edge.destination)) {
-						// Visit the adjacent vector and add to queue
-						queue.add(edge.destination);
-					}
-				}
-			}
-		}
+		GraphSearch.breadthFirst(this, requireIndex(start), requireIndex(end), observerList);
 	}
 	
 	/** 
@@ -287,50 +788,7 @@ public class WeightedGraph<V> {
 	 * is visited
 	 */
 	public void DoDFS(V start, V end) {
-		for (GraphAlgorithmObserver<V> observer : observerList)
-		{
-			observer.notifyDFSHasBegun();
-		}
-
-		// Create collections
-		ArrayList<V> visitedSet = new ArrayList<>();
-		Stack<V> stack = new Stack<>();
-		boolean reachedEnd = false;
-
-		// Add first vertex onto stack
-		stack.push(start);
-
-		while (stack.isEmpty() == false && reachedEnd == false) {
-			// Grab from top of stack
-			V current = stack.pop();
-
-			if (current.equals(end)) {
-				for (GraphAlgorithmObserver<V> observer : observerList)
-				{
-					observer.notifySearchIsOver();
-				}
-
-				reachedEnd = true;
-			}
-
-			// If this vertex hasn't been visited
-			else if (visitedSet.contains(current) == false) {
-				for (GraphAlgorithmObserver<V> observer : observerList)
-				{
-					observer.notifyVisit(current);
-				}
-
-				visitedSet.add(current);
-
-				for (Edge adj : graph.get(current)) {
-					if (visitedSet.contains(adj) == false) {
-						stack.push(adj.destination);
-					}
-				}
-
-			}
-
-		}
+		GraphSearch.depthFirst(this, requireIndex(start), requireIndex(end), observerList);
 	}
 	
 	/** 
@@ -338,8 +796,13 @@ public class WeightedGraph<V> {
 	 * vertex.</P>
 	 * 
 	 * <P>The algorithm DOES NOT terminate when the "end" vertex
-	 * is reached.  It will continue until EVERY vertex in the
-	 * graph has been added to the finished set.</P>
+	 * is reached.  It will continue until EVERY vertex reachable
+	 * from "start" has been added to the finished set.  The next
+	 * vertex to finish is taken from an indexed binary heap, so
+	 * the algorithm runs in O((V + E) log V) time.  When no edge
+	 * weighs more than 64 a bucket queue is used instead (Dial's
+	 * algorithm), which takes O(V + E + C) time where C is the
+	 * largest path cost.</P>
 	 * 
 	 * <P>Before the algorithm begins, this method goes through 
 	 * the collection of Observers, calling notifyDijkstraHasBegun 
@@ -360,134 +823,280 @@ public class WeightedGraph<V> {
 	 * passing in as the argument the "lowest cost" sequence of 
 	 * vertices that leads from start to end (I.e. the first vertex
 	 * in the list will be the "start" vertex, and the last vertex
-	 * in the list will be the "end" vertex.)</P>
+	 * in the list will be the "end" vertex.)  If "end" cannot be
+	 * reached from "start" the list is empty.</P>
 	 * 
 	 * @param start vertex where algorithm will start
 	 * @param end special vertex used as the end of the path 
 	 * reported to observers via the notifyDijkstraIsOver method.
 	 */
 	public void DoDijsktra(V start, V end) {
+		DoDijsktra(start, end, DijkstraMode.ALL_VERTICES);
+	}
 
-		//FinishedSet = 
-//					Pred[ ] = “null” for all vertices
-//					Cost[start] = 0,
-//					Cost[ ] =  for all other vertices
-//					while ( not all vertices in FinishedSet )
-//					find vertex K not in FinishedSet with smallest Cost
-//					add K to FinishedSet
-//					for each neighbor of K that is not in FinishedSet
-//					if (Cost[K] + weight (K,J) < Cost[J] )
-//					Cost[J] = Cost[K] + weight (K,J)
-//					Pred[J] = K
-
-		for (GraphAlgorithmObserver<V> observer : observerList)
-		{
-			observer.notifyDijkstraHasBegun();
+	/**
+	 * <P>Perform Dijkstra's algorithm from "start" to "end", doing only
+	 * as much work as the mode asks for.  The observers are notified as
+	 * described for DoDijsktra(V, V), with these differences:</P>
+	 *
+	 * <P>ALL_VERTICES is the same as DoDijsktra(V, V).</P>
+	 *
+	 * <P>POINT_TO_POINT stops as soon as "end" has been added to the
+	 * finished set, so only vertices no further from "start" than
+	 * "end" are finished.</P>
+	 *
+	 * <P>BIDIRECTIONAL also searches backward from "end" along the
+	 * reversed edges, and stops once the two searches meet.  Only the
+	 * vertices finished by the forward search are reported to
+	 * notifyDijkstraVertexFinished.  The reversed edges are built the
+	 * first time they are needed after the graph changes.</P>
+	 *
+	 * <P>In every mode the path passed to notifyDijkstraIsOver has the
+	 * lowest possible cost (when there are several such paths, the modes
+	 * may report different ones).</P>
+	 *
+	 * @param start vertex where algorithm will start
+	 * @param end special vertex used as the end of the path
+	 * reported to observers via the notifyDijkstraIsOver method.
+	 * @param mode how far the search needs to go
+	 */
+	public void DoDijsktra(V start, V end, DijkstraMode mode) {
+		int s = requireIndex(start);
+		int e = requireIndex(end);
+		if (mode == DijkstraMode.BIDIRECTIONAL) {
+			GraphSearch.bidirectionalDijkstra(this, snapshot().reversed(), s, e, observerList);
+		} else {
+			GraphSearch.dijkstra(this, s, e, mode == DijkstraMode.POINT_TO_POINT, observerList);
 		}
+	}
 
-		// List of verts included in the shortest path
-		LinkedList<V> finishedSet = new LinkedList<>();
-
-		// List of weights
-		HashMap<V, Integer> costMap = new HashMap<>();
+	/**
+	 * <P>Perform an A* search from "start" to "end".  This works like
+	 * DoDijsktra in POINT_TO_POINT mode, except that the next vertex to
+	 * finish is the one with the smallest cost so far plus the
+	 * heuristic's estimate of the cost from there to "end".  A good
+	 * heuristic steers the search towards "end", so far fewer vertices
+	 * are finished.</P>
+	 *
+	 * <P>The observers are notified exactly as in DoDijsktra:
+	 * notifyDijkstraHasBegun first, then notifyDijkstraVertexFinished
+	 * as each vertex finishes, then notifyDijkstraIsOver with the path.
+	 * As long as the heuristic never overestimates, the path has the
+	 * lowest possible cost.</P>
+	 *
+	 * @param start vertex where the search will start
+	 * @param end vertex the search is trying to reach
+	 * @param heuristic estimates the remaining cost from a vertex to "end"
+	 */
+	public void DoAStar(V start, V end, Heuristic<? super V> heuristic) {
+		GraphSearch.aStar(this, requireIndex(start), requireIndex(end), heuristic, observerList);
+	}
 
-		// Predecessor
-		HashMap<V, V> predMap = new HashMap<>();
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every vertex,
+	 * as Dijkstra's algorithm does, and returns them all.  One result can
+	 * answer costTo and pathTo for as many destinations as needed.  The
+	 * search runs against a frozen copy of the graph and no observers
+	 * are notified.</P>
+	 *
+	 * <P>The results for the most recently used sources are cached until
+	 * the graph next changes, so asking again from one of those sources
+	 * does no search at all.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @return lowest costs and predecessors for every vertex
+	 * @throws IllegalArgumentException if the source is not in the graph
+	 */
+	public ShortestPathResult<V> shortestPaths(V source) {
+		int s = requireIndex(source);
+		if (cacheVersion != version) {
+			pathCache.clear();
+			cacheVersion = version;
+		}
+		ShortestPathResult<V> result = pathCache.get(s);
+		if (result != null) {
+			pathCacheHits++;
+			return result;
+		}
+		pathCacheMisses++;
+		result = snapshot().shortestPaths(source);
+		if (pathCacheCapacity > 0) {
+			pathCache.put(s, result);
+		}
+		return result;
+	}
 
-		// Initialize weight map to infinite
-		for (V vert : graph.keySet())
-		{
-			costMap.put(vert, Integer.MAX_VALUE);
+	/** Sets how many sources shortestPaths keeps results for.  The least
+	 * recently used ones are dropped first.  The default is 8.
+	 *
+	 * @param capacity number of results to keep; 0 turns the cache off
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	public void setPathCacheCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		pathCacheCapacity = capacity;
+		Iterator<Integer> sources = pathCache.keySet().iterator();
+		while (pathCache.size() > capacity) {
+			sources.next();
+			sources.remove();
 		}
+	}
 
-		costMap.put(start, 0);
+	/** Returns how many calls to shortestPaths were answered from the
+	 * cache.
+	 * @return number of cache hits
+	 */
+	public long pathCacheHits() {
+		return pathCacheHits;
+	}
 
-		// Creating the predMap
-		while (finishedSet.size() < graph.size()) {
+	/** Returns how many calls to shortestPaths had to run a search.
+	 * @return number of cache misses
+	 */
+	public long pathCacheMisses() {
+		return pathCacheMisses;
+	}
 
-			V minVertex = null;
-			int smallestCost = Integer.MAX_VALUE;
+	/**
+	 * <P>Computes the lowest cost paths from each of the given sources
+	 * to every vertex.  The searches run in parallel on the common
+	 * ForkJoinPool, against a frozen copy of the graph, and no observers
+	 * are notified.  The graph must not be changed while this method
+	 * is running.</P>
+	 *
+	 * @param sources the vertices to search from
+	 * @return one result per distinct source, in the order the sources
+	 * were given
+	 * @throws IllegalArgumentException if a source is not in the graph
+	 */
+	public Map<V, ShortestPathResult<V>> shortestPathsFrom(Collection<? extends V> sources) {
+		return snapshot().shortestPathsFrom(sources);
+	}
 
-			// Find minimum vertex not in finished set
-			for(V vertex : costMap.keySet()) {
-				if((costMap.get(vertex) < smallestCost) && !finishedSet.contains(vertex)) {
-					minVertex = vertex;
-				}
-			}
-			finishedSet.add(minVertex); //put observers
-			for (GraphAlgorithmObserver<V> observer : observerList)
-			{
-				observer.notifyDijkstraVertexFinished(minVertex, costMap.get(minVertex));
-			}
+	/** Same as shortestPathsFrom(Collection), but runs the searches on
+	 * the given pool.
+	 *
+	 * @param sources the vertices to search from
+	 * @param pool the threads to run the searches on
+	 * @return one result per distinct source
+	 */
+	public Map<V, ShortestPathResult<V>> shortestPathsFrom(Collection<? extends V> sources, ForkJoinPool pool) {
+		return snapshot().shortestPathsFrom(sources, pool);
+	}
 
-			// For each neighbor of minVertex
-			for (Edge adjEdge : graph.get(minVertex)) {
-				// If not in the finished set
-				//if (finishedSet.contains(adjEdge.destination) == false) {
-					// Calculate weight (Cost[K] + weight (K,J))
-					int tempWeight = costMap.get(minVertex) + adjEdge.weight;
-
-					if (tempWeight < costMap.get(adjEdge.destination)) {
-						// Cost[J] = Cost[K] + weight (K,J)
-						costMap.put(adjEdge.destination, tempWeight);
-
-						//Pred[J] = K
-						predMap.put(adjEdge.destination, minVertex);
-					}
-				//}
-			}
+	/**
+	 * <P>Breadth-first search from "source" over the whole graph, using
+	 * all the threads of the common ForkJoinPool.  Each level (the
+	 * vertices a given number of edges from the source) is expanded in
+	 * parallel.  Small levels are expanded top-down, from the frontier
+	 * out along the edges.  Large levels are expanded bottom-up, with
+	 * each unvisited vertex looking for a parent in the frontier.</P>
+	 *
+	 * <P>This is meant for reachability and hop-count analysis of large
+	 * graphs.  It runs against a frozen copy of the graph and the
+	 * GraphAlgorithmObservers are not notified.</P>
+	 *
+	 * @param source vertex the search starts from
+	 * @return for every vertex, the number of edges on a shortest path
+	 * from the source (as the cost; null if unreachable) and its parent
+	 * in the BFS tree (as the predecessor)
+	 * @throws IllegalArgumentException if the source is not in the graph
+	 */
+	public ShortestPathResult<V> parallelBFS(V source) {
+		return snapshot().parallelBFS(source);
+	}
 
-			//iterate over the adjacent set
-		}
+	/** Same as parallelBFS(V), but runs on the given pool and reports
+	 * each completed level to levelObserver (unless it is null).
+	 *
+	 * @param source vertex the search starts from
+	 * @param pool the threads to run the search on
+	 * @param levelObserver told about each level as it completes, or null
+	 * @return hop counts (as costs) and BFS parents (as predecessors)
+	 */
+	public ShortestPathResult<V> parallelBFS(V source, ForkJoinPool pool, BFSLevelObserver<V> levelObserver) {
+		return snapshot().parallelBFS(source, pool, levelObserver);
+	}
 
-		/************************************
-		***   CALCULATE LEAST COST PATH   ***
-		 ***********************************/
+	/**
+	 * <P>Computes the lowest cost paths from "source" to every vertex
+	 * with the delta-stepping algorithm, using all the threads of the
+	 * common ForkJoinPool.  The costs are the same as Dijkstra's
+	 * algorithm gives, but the vertices whose tentative costs fall in
+	 * the same range of width "delta" are relaxed in parallel.</P>
+	 *
+	 * <P>A small delta does little work per step in parallel; a large
+	 * delta relaxes vertices more often.  The average edge weight is a
+	 * good first choice.  The search runs against a frozen copy of the
+	 * graph and the GraphAlgorithmObservers are not notified.</P>
+	 *
+	 * @param source vertex the paths start from
+	 * @param delta bucket width, at least 1
+	 * @return lowest costs and predecessors for every vertex
+	 * @throws IllegalArgumentException if the source is not in the
+	 * graph, delta is less than 1, or delta is so small that the
+	 * largest weight spans more than 2^22 buckets
+	 */
+	public ShortestPathResult<V> deltaStepping(V source, int delta) {
+		return snapshot().deltaStepping(source, delta);
+	}
 
-		System.out.println("predMap: " + predMap);
-		System.out.println("costMap: " + costMap);
+	/** Same as deltaStepping(V, int), but runs on the given pool.
+	 *
+	 * @param source vertex the paths start from
+	 * @param delta bucket width, at least 1
+	 * @param pool the threads to run the search on
+	 * @return lowest costs and predecessors for every vertex
+	 */
+	public ShortestPathResult<V> deltaStepping(V source, int delta, ForkJoinPool pool) {
+		return snapshot().deltaStepping(source, delta, pool);
+	}
 
-		LinkedList<V> leastCostPath = new LinkedList<>();
+	/* Called after every change to the vertices or edges */
+	private void modified() {
+		snapshot = null;
+		version++;
+	}
 
-		/*
-		Reverse the predmap:
+	/* The frozen copy, made again if the graph has changed */
+	private CompactGraph<V> snapshot() {
+		if (snapshot == null) {
+			snapshot = freeze();
+		}
+		return snapshot;
+	}
 
-		current = end
+	int vertexCount() {
+		return vertices.size();
+	}
 
-		while not reached start
-		add current to stack
-		pred = predMap[current]
-		current = pred
+	int edgeCount() {
+		return edgeCount;
+	}
 
-		CREATED LEAST COST PATH IN ORDER
-		while stack isn't empty
-		pop from stack and add to least cost path (and notify observers)
+	int maxWeight() {
+		return maxWeight;
+	}
 
-		 */
-		V current = end;
-
-		Stack<V> stack = new Stack<>();
-		boolean reachedStart = false;
-		while (reachedStart == false) {
-			stack.push(current);
-			V pred = predMap.get(current);
-			current = pred;
-
-			if (current == null)
-			{
-				reachedStart = true;
-			}
-		}
+	V vertexAt(int id) {
+		return vertices.get(id);
+	}
 
-		while (stack.isEmpty() == false) {
-			current = stack.pop();
-			leastCostPath.add(current);
-		}
+	int indexOf(Object vertex) {
+		return vertices.indexOf(vertex);
+	}
 
-		for (GraphAlgorithmObserver<V> observer : observerList)
-		{
-			observer.notifyDijkstraIsOver(leastCostPath);
-		}
+	int degree(int v) {
+		return degree[v];
+	}
+
+	int target(int v, int i) {
+		return targets[v][i];
+	}
 
+	int weight(int v, int i) {
+		return weights[v][i];
 	}
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package maze;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * <P>Generates a maze one row at a time with Eller's algorithm, handing
+ * each row to a MazeRowSink as soon as it is finished.  Only the current
+ * row is kept, so memory use depends on the width alone and the height
+ * can run to billions of rows.  This is meant for mazes too big to hold
+ * in a Maze object.</P>
+ *
+ * <P>Every juncture of the current row belongs to a "set" of junctures
+ * that are already connected by the rows above.  Neighbours in
+ * different sets are joined at random, then every set opens at least
+ * one passage down into the next row, which carries the set along.  In
+ * the last row all remaining sets are joined, so the result has exactly
+ * one path between any two junctures.  The sparcity then removes extra
+ * walls, as in Maze:  each wall is removed with probability
+ * 1 - e^(-sparcity / 100), which matches the density of removals Maze
+ * makes for the same sparcity.</P>
+ *
+ * <P>The maze depends only on the size, sparcity and seed, so the same
+ * arguments always give the same maze.  Weights are from 1 to
+ * Maze.MAX_WEIGHT, as in Maze.</P>
+ */
+public final class EllerMazeGenerator {
+
+	private final long height;
+	private final int width;
+	private final double removeWall;
+	private final long randomSeed;
+
+	/**
+	 * @param mazeHeight number of rows of junctures
+	 * @param mazeWidth number of junctures in each row
+	 * @param sparcity value from 0 to 100.  If set to 0, there is exactly
+	 * one path from any juncture to any other juncture.  Higher values
+	 * have fewer walls, hence more paths between junctures.
+	 * @param randomSeed the same seed always gives the same maze
+	 */
+	public EllerMazeGenerator(long mazeHeight, int mazeWidth, int sparcity, long randomSeed) {
+		if (mazeHeight < 1 || mazeWidth < 1 || sparcity < 0 || sparcity > 100) {
+			throw new IllegalArgumentException();
+		}
+		height = mazeHeight;
+		width = mazeWidth;
+		removeWall = 1 - Math.exp(-sparcity / 100.0);
+		this.randomSeed = randomSeed;
+	}
+
+	/** Returns the number of rows of junctures.
+	 * @return height of maze
+	 */
+	public long getMazeHeight() {
+		return height;
+	}
+
+	/** Returns the number of junctures in each row.
+	 * @return width of maze
+	 */
+	public int getMazeWidth() {
+		return width;
+	}
+
+	/**
+	 * Generates the maze, passing each row to the sink in order from
+	 * the top.
+	 *
+	 * @param sink receives the rows
+	 * @throws IOException if the sink throws one
+	 */
+	public void generate(MazeRowSink sink) throws IOException {
+		SplittableRandom random = new SplittableRandom(randomSeed);
+		boolean[] wallToRight = new boolean[width];
+		boolean[] wallBelow = new boolean[width];
+		byte[] weightToRight = new byte[width];
+		byte[] weightBelow = new byte[width];
+
+		// set[x] is the set of juncture x of the current row, or -1 if no
+		// passage leads down into it.  Sets are numbered 0 to width - 1
+		// and joined with a union-find forest over those numbers, which
+		// is rebuilt for every row.
+		int[] set = new int[width];
+		int[] parent = new int[width];
+		boolean[] inUse = new boolean[width];
+		boolean[] goesDown = new boolean[width];
+		int[] lastCell = new int[width];
+		Arrays.fill(set, -1);
+
+		for (long y = 0; y < height; y++) {
+			boolean lastRow = y == height - 1;
+
+			// Junctures nothing leads down into start sets of their own
+			Arrays.fill(inUse, false);
+			for (int x = 0; x < width; x++) {
+				if (set[x] >= 0) {
+					inUse[set[x]] = true;
+				}
+			}
+			int free = 0;
+			for (int x = 0; x < width; x++) {
+				if (set[x] < 0) {
+					while (inUse[free]) {
+						free++;
+					}
+					set[x] = free;
+					inUse[free] = true;
+				}
+			}
+			for (int i = 0; i < width; i++) {
+				parent[i] = i;
+			}
+
+			// Join neighbours in different sets; the last row joins them all
+			for (int x = 0; x < width - 1; x++) {
+				int a = find(parent, set[x]);
+				int b = find(parent, set[x + 1]);
+				if (a != b && (lastRow || random.nextBoolean())) {
+					parent[b] = a;
+					wallToRight[x] = false;
+				} else {
+					wallToRight[x] = true;
+				}
+				weightToRight[x] = (byte) (random.nextInt(Maze.MAX_WEIGHT) + 1);
+			}
+			wallToRight[width - 1] = true;
+			weightToRight[width - 1] = 0;
+
+			if (lastRow) {
+				Arrays.fill(wallBelow, true);
+				Arrays.fill(weightBelow, (byte) 0);
+			} else {
+				// Each set goes down from some of its junctures, and from
+				// its last juncture if from none of the others
+				Arrays.fill(goesDown, false);
+				for (int x = 0; x < width; x++) {
+					set[x] = find(parent, set[x]);
+					wallBelow[x] = !random.nextBoolean();
+					if (!wallBelow[x]) {
+						goesDown[set[x]] = true;
+					}
+					lastCell[set[x]] = x;
+				}
+				for (int x = 0; x < width; x++) {
+					if (!goesDown[set[x]] && lastCell[set[x]] == x) {
+						wallBelow[x] = false;
+						goesDown[set[x]] = true;
+					}
+					weightBelow[x] = (byte) (random.nextInt(Maze.MAX_WEIGHT) + 1);
+				}
+			}
+
+			// The next row inherits sets through passages of the tree, before
+			// the sparcity opens any more
+			for (int x = 0; x < width; x++) {
+				set[x] = wallBelow[x] ? -1 : set[x];
+			}
+			if (removeWall > 0) {
+				for (int x = 0; x < width - 1; x++) {
+					if (wallToRight[x] && random.nextDouble() < removeWall) {
+						wallToRight[x] = false;
+					}
+				}
+				for (int x = 0; x < width && !lastRow; x++) {
+					if (wallBelow[x] && random.nextDouble() < removeWall) {
+						wallBelow[x] = false;
+					}
+				}
+			}
+
+			sink.acceptRow(y, wallToRight, wallBelow, weightToRight, weightBelow);
+		}
+	}
+
+	/**
+	 * Generates the maze straight into a stream, in the format described
+	 * by MazeRowWriter.  The stream is flushed but not closed.
+	 *
+	 * @param out where to write the maze
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		MazeRowWriter writer = new MazeRowWriter(out, height, width);
+		generate(writer);
+		writer.flush();
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+}
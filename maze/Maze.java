@@ -1,8 +1,21 @@
 package maze;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * <P>This class represents a randomly generated Maze, 
@@ -23,25 +36,52 @@ import java.util.Random;
  */
 public class Maze {
 
-	private static Random random = new Random();
+	/** The largest weight between two junctures. */
+	public static final int MAX_WEIGHT = 9;
+
+	/** The first four bytes of a file written by save. */
+	public static final int FILE_MAGIC = 0x4D415A46;  // "MAZF"
+
+	/** The version of the file format save writes. */
+	public static final int FILE_VERSION = 1;
+
+	// Seeds for mazes constructed without one
+	private static Random seeds = new Random();
+
 	private int width, height;  // wall dimensions, not junctures
-	private int[][] wallIndex;
-	private boolean[][] wallToRight;
-	private boolean[][] wallDown;
-	private int [][] horizontalWeights;
-	private int [][] verticalWeights;
+
+	// Only needed while the maze is being drawn
+	private Random random;
+
+	// Which wall each wall point belongs to, row-major.  Only needed
+	// while the maze is being drawn.
+	private int[] wallIndex;
+
+	// Wall flags, one bit per wall point (row * width + col), packed
+	// 64 to a long
+	private long[] wallToRight;
+	private long[] wallDown;
+
+	// Weights, row-major with rows of width - 1 and width - 2 entries.
+	// Every weight is at most MAX_WEIGHT, so a byte holds it.
+	private byte[] horizontalWeights;
+	private byte[] verticalWeights;
+
+	// The canonical Juncture for each position (y * mazeWidth + x),
+	// created as they are asked for
+	private Juncture[] junctures;
 	
 	/**
 	 * Construct random maze.
 	 * 
 	 * @param mazeHeight
 	 * @param mazeWidth
-	 * @param sparcity value from 0 to 100.  If set to 100, there is exactly one path
-	 * from any juncture to any other juncture.  Lower values have fewer walls, hence 
+	 * @param sparcity value from 0 to 100.  If set to 0, there is exactly one path
+	 * from any juncture to any other juncture.  Higher values have fewer walls, hence 
 	 * more paths between junctures.
 	 */
 	public Maze(int mazeHeight, int mazeWidth, int sparcity) {
-		this(mazeHeight, mazeWidth, sparcity, random.nextLong());
+		this(mazeHeight, mazeWidth, sparcity, seeds.nextLong());
 	}
 	
 	/**
@@ -54,151 +94,437 @@ public class Maze {
 	 * @param randomSeed
 	 */
 	public Maze(int mazeHeight, int mazeWidth, int sparcity, long randomSeed) {
+		this(mazeHeight, mazeWidth);
 		random = new Random(randomSeed);
+		draw();
+		removeWalls(sparcity, random);
+		random = null;
+	}
+
+	/* An empty maze of the given size, with no walls and all weights 0 */
+	private Maze(int mazeHeight, int mazeWidth) {
 		width = mazeWidth + 1;
 		height = mazeHeight + 1;
-		int currWall = 1;
-		horizontalWeights = new int[height - 2][width - 1];
-		verticalWeights = new int[height - 1][width - 2];
-		for (int i = 0; i < height - 2; i++) {
-			for (int j = 0; j < width - 1; j++) {
-				horizontalWeights[i][j] = random.nextInt(9) + 1;
+		horizontalWeights = new byte[(height - 2) * (width - 1)];
+		verticalWeights = new byte[(height - 1) * (width - 2)];
+		wallToRight = new long[(height * width + 63) >>> 6];
+		wallDown = new long[(height * width + 63) >>> 6];
+	}
+
+	/**
+	 * <P>Generates a maze in square tiles of tileSize junctures, drawing
+	 * the tiles in parallel on the common ForkJoinPool.  See
+	 * tiled(int, int, int, long, int, ForkJoinPool).</P>
+	 *
+	 * @param mazeHeight
+	 * @param mazeWidth
+	 * @param sparcity
+	 * @param randomSeed
+	 * @param tileSize width and height of each tile, in junctures
+	 * @return the new maze
+	 */
+	public static Maze tiled(int mazeHeight, int mazeWidth, int sparcity, long randomSeed, int tileSize) {
+		return tiled(mazeHeight, mazeWidth, sparcity, randomSeed, tileSize, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * <P>Generates a maze in square tiles of tileSize junctures (smaller
+	 * along the bottom and right edges), drawing the tiles in parallel
+	 * on the given pool.  Each tile is drawn the same way as a whole
+	 * Maze, with a seed worked out from randomSeed and the tile's
+	 * position, so it has exactly one path between any two of its
+	 * junctures and a wall all round.</P>
+	 *
+	 * <P>The tiles are then joined along a random spanning tree of the
+	 * grid of tiles:  for each pair of neighbouring tiles in the tree,
+	 * one passage is opened at a random point of the wall between them.
+	 * This keeps exactly one path between any two junctures of the
+	 * whole maze.  Finally walls are removed for the sparcity, as the
+	 * constructor does.</P>
+	 *
+	 * <P>The maze depends only on the size, sparcity, seed and tile
+	 * size, never on the number of threads.</P>
+	 *
+	 * @param mazeHeight
+	 * @param mazeWidth
+	 * @param sparcity
+	 * @param randomSeed
+	 * @param tileSize width and height of each tile, in junctures
+	 * @param pool the threads to draw the tiles on
+	 * @return the new maze
+	 */
+	public static Maze tiled(int mazeHeight, int mazeWidth, int sparcity, long randomSeed, int tileSize,
+			ForkJoinPool pool) {
+		if (tileSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		int tileRows = (mazeHeight + tileSize - 1) / tileSize;
+		int tileCols = (mazeWidth + tileSize - 1) / tileSize;
+		Maze[] tiles = new Maze[tileRows * tileCols];
+		pool.submit(() -> IntStream.range(0, tiles.length).parallel().forEach(t -> {
+			Maze tile = new Maze(Math.min(tileSize, mazeHeight - t / tileCols * tileSize),
+					Math.min(tileSize, mazeWidth - t % tileCols * tileSize));
+			tile.random = new Random(new SplittableRandom(randomSeed + t * 0x9E3779B97F4A7C15L).nextLong());
+			tile.draw();
+			tiles[t] = tile;
+		})).join();
+
+		Maze maze = new Maze(mazeHeight, mazeWidth);
+		for (int t = 0; t < tiles.length; t++) {
+			maze.copyTile(tiles[t], t / tileCols * tileSize, t % tileCols * tileSize);
+			tiles[t] = null;
+		}
+		for (int i = 0; i < maze.width - 1; i++) {
+			maze.setBit(maze.wallToRight, 0, i, true);
+		}
+		for (int i = 0; i < maze.height - 1; i++) {
+			maze.setBit(maze.wallDown, i, 0, true);
+		}
+
+		// Join the tiles along a random spanning tree (Kruskal's algorithm
+		// with the seams in random order).  Seam 2t is the one to the right
+		// of tile t, seam 2t + 1 the one below it.
+		Random random = new Random(randomSeed);
+		List<Integer> seams = new ArrayList<>();
+		for (int t = 0; t < tiles.length; t++) {
+			if (t % tileCols < tileCols - 1) {
+				seams.add(2 * t);
+			}
+			if (t / tileCols < tileRows - 1) {
+				seams.add(2 * t + 1);
 			}
 		}
-		for (int i = 0; i < height - 1; i++) {
-			for (int j = 0; j < width - 2; j++) {
-				verticalWeights[i][j] = random.nextInt(9) + 1;
+		Collections.shuffle(seams, random);
+		int[] parent = new int[tiles.length];
+		for (int t = 0; t < parent.length; t++) {
+			parent[t] = t;
+		}
+		for (int seam : seams) {
+			int t = seam / 2;
+			boolean right = seam % 2 == 0;
+			int a = find(parent, t);
+			int b = find(parent, right ? t + 1 : t + tileCols);
+			if (a == b) {
+				continue;
+			}
+			parent[a] = b;
+			int row = t / tileCols * tileSize;
+			int col = t % tileCols * tileSize;
+			if (right) {
+				int rows = Math.min(tileSize, mazeHeight - row);
+				maze.setBit(maze.wallDown, row + random.nextInt(rows), col + tileSize, false);
+			} else {
+				int cols = Math.min(tileSize, mazeWidth - col);
+				maze.setBit(maze.wallToRight, row + tileSize, col + random.nextInt(cols), false);
+			}
+		}
+
+		maze.removeWalls(sparcity, random);
+		return maze;
+	}
 
+	/* Copies the walls and weights of a tile drawn by tiled() into this
+	 * maze, with the tile's top left juncture at (col, row).  The weights
+	 * of the passages to the right of and below the tile come from the
+	 * tile's own random numbers.
+	 */
+	private void copyTile(Maze tile, int row, int col) {
+		int rows = tile.getMazeHeight();
+		int cols = tile.getMazeWidth();
+		for (int y = 0; y < rows; y++) {
+			for (int x = 0; x < cols; x++) {
+				if (tile.isWallBelow(x, y)) {
+					setBit(wallToRight, row + y + 1, col + x, true);
+				}
+				if (tile.isWallToRight(x, y)) {
+					setBit(wallDown, row + y, col + x + 1, true);
+				}
+				if (y < rows - 1) {
+					horizontalWeights[(row + y) * (width - 1) + col + x] = (byte) tile.getWeightBelow(x, y);
+				}
+				if (x < cols - 1) {
+					verticalWeights[(row + y) * (width - 2) + col + x] = (byte) tile.getWeightToRight(x, y);
+				}
+			}
+		}
+		for (int y = 0; y < rows; y++) {
+			byte weight = (byte) (tile.random.nextInt(MAX_WEIGHT) + 1);
+			if (col + cols < width - 1) {
+				verticalWeights[(row + y) * (width - 2) + col + cols - 1] = weight;
 			}
 		}
-		wallIndex = new int[height][width];
+		for (int x = 0; x < cols; x++) {
+			byte weight = (byte) (tile.random.nextInt(MAX_WEIGHT) + 1);
+			if (row + rows < height - 1) {
+				horizontalWeights[(row + rows - 1) * (width - 1) + col + x] = weight;
+			}
+		}
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/* Draws a maze with exactly one path between any two junctures into
+	 * this empty maze, using random, and gives every passage a weight.
+	 */
+	private void draw() {
+		int currWall = 1;
+		for (int i = 0; i < horizontalWeights.length; i++) {
+			horizontalWeights[i] = (byte) (random.nextInt(MAX_WEIGHT) + 1);
+		}
+		for (int i = 0; i < verticalWeights.length; i++) {
+			verticalWeights[i] = (byte) (random.nextInt(MAX_WEIGHT) + 1);
+		}
+		wallIndex = new int[height * width];
 		for (int i = 0; i < width; i++) {
-			wallIndex[0][i] = currWall;
-			wallIndex[height - 1][i] = currWall;
+			wallIndex[i] = currWall;
+			wallIndex[(height - 1) * width + i] = currWall;
 		}
 		for (int i = 0; i < height; i++) {
-			wallIndex[i][0] = currWall;
-			wallIndex[i][width - 1] = currWall;
+			wallIndex[i * width] = currWall;
+			wallIndex[i * width + width - 1] = currWall;
 		}
-		wallToRight = new boolean[height][width];
-		wallDown = new boolean[height][width];
 		for (int i = 0; i < width - 1; i++) {
-			wallToRight[0][i] = true;
-			wallToRight[height - 1][i] = true;
+			setBit(wallToRight, 0, i, true);
+			setBit(wallToRight, height - 1, i, true);
 		}
 		for (int i = 0; i < height - 1; i++) {
-			wallDown[i][0] = true;
-			wallDown[i][width - 1] = true;
+			setBit(wallDown, i, 0, true);
+			setBit(wallDown, i, width - 1, true);
 		}
 
-		/* Draw the interior walls */
-		ArrayList<Juncture> points = new ArrayList<>();
+		/* Draw the interior walls, starting from the wall points in a
+		 * random order.  The points are row * width + col, shuffled the
+		 * same way Collections.shuffle would.
+		 */
+		int[] points = new int[(width - 1) * (height - 1)];
+		int count = 0;
 		for (int x = 1; x < width; x++) {
 			for (int y = 1; y < height; y++) {
-				points.add(new Juncture(x, y));
+				points[count++] = y * width + x;
 			}
 		}
-		Collections.shuffle(points);
+		for (int i = points.length; i > 1; i--) {
+			int j = random.nextInt(i);
+			int point = points[i - 1];
+			points[i - 1] = points[j];
+			points[j] = point;
+		}
 		
-		while (points.size() > 0) {
-			Juncture p = points.remove(0);
-			int row = p.getY();
-			int col = p.getX();
-			if (wallIndex[row][col] == 0) {
+		for (int p : points) {
+			int row = p / width;
+			int col = p % width;
+			if (wallIndex[row * width + col] == 0) {
 				currWall++;
-				wallIndex[row][col] = currWall;
+				wallIndex[row * width + col] = currWall;
 				drawFrom(row, col, currWall);
 			}
 		}
-		
-		/* Remove some walls if sparcity is > 0 */
+		wallIndex = null;
+	}
+
+	/* Remove some walls if sparcity is > 0 */
+	private void removeWalls(int sparcity, Random random) {
 		if (sparcity > 0) {
 			for (int i = 0; i < width * height * sparcity/50.0; i++) {
 				int r = random.nextInt(height - 2) + 1;
 				int c = random.nextInt(width - 2) + 1;
 				if (random.nextBoolean() == false) {
-					wallDown[r][c] = false;
+					setBit(wallDown, r, c, false);
 				} else {
-					wallToRight[r][c] = false;
+					setBit(wallToRight, r, c, false);
 				}
 			}
 		}
 	}
 	
+	/* Grows wall number currWall one cell at a time, starting from
+	 * (row, col), until it runs into a different wall.  This is a loop
+	 * rather than a recursive call per cell so that large mazes do not
+	 * overflow the stack.
+	 */
 	private void drawFrom(int row, int col, int currWall) {
-		if (possibleToExtend(row, col, currWall)) {
-			while(true) {
-				int directionToTry = random.nextInt(4);
-				if (directionToTry == 0) {  // to right
-					int wallFound = wallIndex[row][col + 1];
-					if (wallFound != currWall) {
-						wallIndex[row][col + 1] = currWall;
-						wallToRight[row][col] = true;
-						if (wallFound == 0) {
-							drawFrom(row, col + 1, currWall);
+		// Every cell of currWall so far, as row * width + col, so a
+		// stuck wall can restart from one of its own cells without
+		// searching the whole grid
+		int[] cells = new int[16];
+		int cellCount = 0;
+		cells[cellCount++] = row * width + col;
+
+		while (true) {
+			if (possibleToExtend(row, col, currWall)) {
+				int wallFound;
+				while(true) {
+					int directionToTry = random.nextInt(4);
+					int here = row * width + col;
+					if (directionToTry == 0) {  // to right
+						wallFound = wallIndex[here + 1];
+						if (wallFound != currWall) {
+							wallIndex[here + 1] = currWall;
+							setBit(wallToRight, row, col, true);
+							col++;
+							break;
 						}
-						return;
-					}
-				} else if (directionToTry == 1) {  // to left
-					int wallFound = wallIndex[row][col - 1];
-					if (wallFound != currWall) {
-						wallIndex[row][col - 1] = currWall;
-						wallToRight[row][col - 1] = true;
-						if (wallFound == 0) {
-							drawFrom(row, col - 1, currWall);
+					} else if (directionToTry == 1) {  // to left
+						wallFound = wallIndex[here - 1];
+						if (wallFound != currWall) {
+							wallIndex[here - 1] = currWall;
+							setBit(wallToRight, row, col - 1, true);
+							col--;
+							break;
 						}
-						return;
-					}
-				} else if (directionToTry == 2) {  // up
-					int wallFound = wallIndex[row - 1][col];
-					if (wallFound != currWall) {
-						wallIndex[row - 1][col] = currWall;
-						wallDown[row - 1][col] = true;
-						if (wallFound == 0) {
-							drawFrom(row - 1, col, currWall);
+					} else if (directionToTry == 2) {  // up
+						wallFound = wallIndex[here - width];
+						if (wallFound != currWall) {
+							wallIndex[here - width] = currWall;
+							setBit(wallDown, row - 1, col, true);
+							row--;
+							break;
 						}
-						return;
-					}
-				} else {  //down
-					int wallFound = wallIndex[row + 1][col];
-					if (wallFound != currWall) {
-						wallIndex[row + 1][col] = currWall;
-						wallDown[row][col] = true;
-						if (wallFound == 0) {
-							drawFrom(row + 1, col, currWall);
+					} else {  //down
+						wallFound = wallIndex[here + width];
+						if (wallFound != currWall) {
+							wallIndex[here + width] = currWall;
+							setBit(wallDown, row, col, true);
+							row++;
+							break;
 						}
-						return;
 					}
 				}
-			}
-		} else {  // no current extension possible
-			while(true) {
-				int r = random.nextInt(height);
-				int c = random.nextInt(width);
-				if (wallIndex[r][c] == currWall && possibleToExtend(r, c, currWall)) {
-					drawFrom(r, c, currWall);
+				if (wallFound != 0) {  // joined another wall
 					return;
 				}
+				if (cellCount == cells.length) {
+					cells = Arrays.copyOf(cells, 2 * cellCount);
+				}
+				cells[cellCount++] = row * width + col;
+			} else {  // no current extension possible
+				while(true) {
+					int cell = cells[random.nextInt(cellCount)];
+					int r = cell / width;
+					int c = cell % width;
+					if (possibleToExtend(r, c, currWall)) {
+						row = r;
+						col = c;
+						break;
+					}
+				}
 			}
 		}
 	}
 	
 	private boolean possibleToExtend(int row, int col, int currWall) {
-		if (wallIndex[row][col + 1] != currWall) {
+		int here = row * width + col;
+		if (wallIndex[here + 1] != currWall) {
 			return true;
 		}
-		if (wallIndex[row][col - 1] != currWall) {
+		if (wallIndex[here - 1] != currWall) {
 			return true;
 		}
-		if (wallIndex[row + 1][col] != currWall) {
+		if (wallIndex[here + width] != currWall) {
 			return true;
 		}
-		if (wallIndex[row - 1][col] != currWall) {
+		if (wallIndex[here - width] != currWall) {
 			return true;
 		}
 		return false;
 	}
 
+	/* Reads the flag for wall point (row, col) from a wall bitset */
+	private boolean bit(long[] bits, int row, int col) {
+		int i = row * width + col;
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/* Sets or clears the flag for wall point (row, col) in a wall bitset */
+	private void setBit(long[] bits, int row, int col, boolean value) {
+		int i = row * width + col;
+		if (value) {
+			bits[i >>> 6] |= 1L << i;
+		} else {
+			bits[i >>> 6] &= ~(1L << i);
+		}
+	}
+
+	/**
+	 * <P>Writes this maze to a file that load can read back.  The file
+	 * holds the header (the four bytes "MAZF", the format version, the
+	 * height and the width, all ints), then the wall bits to the right
+	 * and below, packed 64 to a long as the maze keeps them, and then
+	 * the weights between neighbours across and down, one byte each.
+	 * Numbers are big-endian.</P>
+	 *
+	 * @param file the file to write; replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeInt(getMazeHeight());
+			out.writeInt(getMazeWidth());
+			for (long bits : wallToRight) {
+				out.writeLong(bits);
+			}
+			for (long bits : wallDown) {
+				out.writeLong(bits);
+			}
+			out.write(horizontalWeights);
+			out.write(verticalWeights);
+		}
+	}
+
+	/**
+	 * <P>Reads a maze written by save.  The file is mapped into memory
+	 * with FileChannel.map and its sections are copied straight into
+	 * the maze's arrays, with nothing to parse or generate.</P>
+	 *
+	 * @param file the file to read
+	 * @return the maze
+	 * @throws IOException if the file cannot be read or is not a maze
+	 * file
+	 */
+	public static Maze load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < 16) {
+				throw new IOException("not a maze file");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 16);
+			if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION) {
+				throw new IOException("not a maze file");
+			}
+			int mazeHeight = header.getInt();
+			int mazeWidth = header.getInt();
+			if (mazeHeight < 1 || mazeWidth < 1
+					|| (mazeHeight + 1L) * (mazeWidth + 1L) > Integer.MAX_VALUE) {
+				throw new IOException("not a maze file");
+			}
+			Maze maze = new Maze(mazeHeight, mazeWidth);
+			long walls = 8L * maze.wallToRight.length;
+			if (channel.size() != 16 + 2 * walls + maze.horizontalWeights.length
+					+ maze.verticalWeights.length) {
+				throw new IOException("not a maze file");
+			}
+			long position = 16;
+			channel.map(FileChannel.MapMode.READ_ONLY, position, walls).asLongBuffer().get(maze.wallToRight);
+			position += walls;
+			channel.map(FileChannel.MapMode.READ_ONLY, position, walls).asLongBuffer().get(maze.wallDown);
+			position += walls;
+			channel.map(FileChannel.MapMode.READ_ONLY, position, maze.horizontalWeights.length)
+					.get(maze.horizontalWeights);
+			position += maze.horizontalWeights.length;
+			channel.map(FileChannel.MapMode.READ_ONLY, position, maze.verticalWeights.length)
+					.get(maze.verticalWeights);
+			return maze;
+		}
+	}
+
 	/** Returns the width of this maze.  (This is the width
 	 * of the grid of junctures.)
 	 * @return width of maze
@@ -215,13 +541,40 @@ public class Maze {
 		return height - 1;
 	}
 
+	/** Returns the Juncture at (x, y).  The same Juncture object is
+	 * returned every time, so code that looks junctures up often does
+	 * not need to create new ones.
+	 * @param x
+	 * @param y
+	 * @return the juncture at (x, y)
+	 */
+	public Juncture juncture(int x, int y) {
+		if (x < 0 || x >= width - 1 || y < 0 || y >= height - 1) {
+			throw new IllegalArgumentException();
+		}
+		Juncture[] cache = junctures;
+		if (cache == null) {
+			// Two threads may both get here; each then fills its own
+			// cache, which is harmless since Junctures are immutable
+			cache = new Juncture[(width - 1) * (height - 1)];
+			junctures = cache;
+		}
+		int i = y * (width - 1) + x;
+		Juncture juncture = cache[i];
+		if (juncture == null) {
+			juncture = new Juncture(x, y);
+			cache[i] = juncture;
+		}
+		return juncture;
+	}
+
 	/** Returns true if there is a wall above the given juncture,
 	 * false otherwise.
 	 * @param juncture
 	 * @return true if there is a wall above this juncture
 	 */
 	public boolean isWallAbove(Juncture juncture) {
-		return wallToRight[juncture.getY()][juncture.getX()];
+		return bit(wallToRight, juncture.getY(), juncture.getX());
 	}
 
 	/** Returns true if there is a wall below the given juncture,
@@ -230,7 +583,7 @@ public class Maze {
 	 * @return true if there is a wall below this juncture
 	 */
 	public boolean isWallBelow(Juncture juncture) {
-		return wallToRight[juncture.getY()+ 1][juncture.getX()];
+		return bit(wallToRight, juncture.getY() + 1, juncture.getX());
 	}
 
 	/** Returns true if there is a wall to the left of the 
@@ -239,7 +592,7 @@ public class Maze {
 	 * @return true if there is a wall to the left of this juncture
 	 */
 	public boolean isWallToLeft(Juncture juncture) {
-		return wallDown[juncture.getY()][juncture.getX()];
+		return bit(wallDown, juncture.getY(), juncture.getX());
 	}
 
 	/** Returns true if there is a wall to the right of the 
@@ -248,7 +601,7 @@ public class Maze {
 	 * @return true if there is a wall to the right of this juncture
 	 */
 	public boolean isWallToRight(Juncture juncture) {
-		return wallDown[juncture.getY()][juncture.getX() + 1];
+		return bit(wallDown, juncture.getY(), juncture.getX() + 1);
 	}
 
 	/** Returns the weight between this juncture and the one above.
@@ -257,7 +610,7 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightAbove(Juncture juncture) {
-		return horizontalWeights[juncture.getY() - 1][juncture.getX()];
+		return horizontalWeights[(juncture.getY() - 1) * (width - 1) + juncture.getX()];
 	}
 	
 	/** Returns the weight between this juncture and the one below.
@@ -266,7 +619,7 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightBelow(Juncture juncture) {
-		return horizontalWeights[juncture.getY()][juncture.getX()];
+		return horizontalWeights[juncture.getY() * (width - 1) + juncture.getX()];
 	}
 
 	/** Returns the weight between this juncture and the one to its
@@ -276,7 +629,7 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightToLeft(Juncture juncture) {
-		return verticalWeights[juncture.getY()][juncture.getX() - 1];
+		return verticalWeights[juncture.getY() * (width - 2) + juncture.getX() - 1];
 	}
 	
 	/** Returns the weight between this juncture and the one to its
@@ -286,6 +639,85 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightToRight(Juncture juncture) {
-		return	verticalWeights[juncture.getY()][juncture.getX()];
+		return	verticalWeights[juncture.getY() * (width - 2) + juncture.getX()];
+	}
+
+	/** Returns true if there is a wall above the juncture at (x, y).
+	 * Same as isWallAbove(new Juncture(x, y)), without the Juncture.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall above this juncture
+	 */
+	public boolean isWallAbove(int x, int y) {
+		return bit(wallToRight, y, x);
+	}
+
+	/** Returns true if there is a wall below the juncture at (x, y).
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall below this juncture
+	 */
+	public boolean isWallBelow(int x, int y) {
+		return bit(wallToRight, y + 1, x);
+	}
+
+	/** Returns true if there is a wall to the left of the juncture
+	 * at (x, y).
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall to the left of this juncture
+	 */
+	public boolean isWallToLeft(int x, int y) {
+		return bit(wallDown, y, x);
+	}
+
+	/** Returns true if there is a wall to the right of the juncture
+	 * at (x, y).
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall to the right of this juncture
+	 */
+	public boolean isWallToRight(int x, int y) {
+		return bit(wallDown, y, x + 1);
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one
+	 * above.
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightAbove(int x, int y) {
+		return horizontalWeights[(y - 1) * (width - 1) + x];
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one
+	 * below.
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightBelow(int x, int y) {
+		return horizontalWeights[y * (width - 1) + x];
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one
+	 * to its left.
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightToLeft(int x, int y) {
+		return verticalWeights[y * (width - 2) + x - 1];
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one
+	 * to its right.
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightToRight(int x, int y) {
+		return verticalWeights[y * (width - 2) + x];
 	}
 }
@@ -224,11 +224,11 @@ public class MazeGUI {
 				g.setColor(WALL_COLOR);
 				for (int row = 0; row < height - 1; row++) {
 					for (int col = 0; col < width - 1; col++) {
-						if (maze.isWallAbove(new Juncture(col, row))) {
+						if (maze.isWallAbove(col, row)) {
 							drawHorizontalLine(g, (int)((col + 1) * widthMultiplier), (int)((row + 1) * heightMultiplier),
 									(int)((col + 2) * widthMultiplier));						
 						}
-						if (maze.isWallToLeft(new Juncture(col, row))) {
+						if (maze.isWallToLeft(col, row)) {
 							drawVerticalLine(g, (int)((col + 1) * widthMultiplier),  (int)((row + 1) * heightMultiplier),
 									(int)((row + 2) * heightMultiplier));
 						}
@@ -244,14 +244,14 @@ public class MazeGUI {
 					}
 				}
 				for (int row = 0; row < height - 1; row++) {
-					if (maze.isWallToRight(new Juncture(width - 2, row))) {
+					if (maze.isWallToRight(width - 2, row)) {
 						int col = width - 1;
 						drawVerticalLine(g, (int)((col + 1) * widthMultiplier),  (int)((row + 1) * heightMultiplier),
 								(int)((row + 2) * heightMultiplier));
 					}
 				}
 				for (int col = 0; col < width - 1; col++) {
-					if (maze.isWallBelow(new Juncture(col, height - 2))) {
+					if (maze.isWallBelow(col, height - 2)) {
 						int row = height - 1;
 						drawHorizontalLine(g, (int)((col + 1) * widthMultiplier), (int)((row + 1) * heightMultiplier),
 								(int)((col + 2) * widthMultiplier));
@@ -262,17 +262,15 @@ public class MazeGUI {
 					g.setColor(Color.BLACK);
 					for (int row = 0; row < height - 2; row++) {
 						for (int col = 0; col < width - 1 ; col++) {
-							Juncture juncture = new Juncture(col, row);
-							if (!maze.isWallBelow(juncture)) {
-								g.drawString(String.valueOf(maze.getWeightBelow(juncture)), (int)((col + 1.37) * widthMultiplier + STROKE_WIDTH), (int)((row + 2.15) * heightMultiplier + STROKE_WIDTH));
+							if (!maze.isWallBelow(col, row)) {
+								g.drawString(String.valueOf(maze.getWeightBelow(col, row)), (int)((col + 1.37) * widthMultiplier + STROKE_WIDTH), (int)((row + 2.15) * heightMultiplier + STROKE_WIDTH));
 							}
 						}
 					}
 					for (int row = 0; row < height - 1; row++) {
 						for (int col = 0; col < width - 2; col++) {
-							Juncture juncture = new Juncture(col, row);
-							if (!maze.isWallToRight(juncture)) {
-								g.drawString(String.valueOf(maze.getWeightToRight(juncture)), (int)((col + 1.85) * widthMultiplier + STROKE_WIDTH), (int)((row + 1.65) * heightMultiplier + STROKE_WIDTH));
+							if (!maze.isWallToRight(col, row)) {
+								g.drawString(String.valueOf(maze.getWeightToRight(col, row)), (int)((col + 1.85) * widthMultiplier + STROKE_WIDTH), (int)((row + 1.65) * heightMultiplier + STROKE_WIDTH));
 							}
 						}
 					}
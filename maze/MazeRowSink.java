@@ -0,0 +1,31 @@
+package maze;
+
+import java.io.IOException;
+
+/**
+ * <P>Receives a maze one row of junctures at a time, from the top row
+ * down, as an EllerMazeGenerator produces it.</P>
+ *
+ * <P>The arrays are reused for every row, so a sink that needs to keep
+ * a row must copy it before returning.</P>
+ */
+public interface MazeRowSink {
+
+	/**
+	 * Accepts row y of the maze.  Entry x of each array describes the
+	 * juncture (x, y).
+	 *
+	 * @param y the row number, starting from 0
+	 * @param wallToRight true where there is a wall to the right of the
+	 * juncture; always true for the last juncture of the row
+	 * @param wallBelow true where there is a wall below the juncture;
+	 * always true in the last row
+	 * @param weightToRight the weight between each juncture and the one
+	 * to its right; the last entry is 0
+	 * @param weightBelow the weight between each juncture and the one
+	 * below; all 0 in the last row
+	 * @throws IOException if the sink cannot store the row
+	 */
+	public void acceptRow(long y, boolean[] wallToRight, boolean[] wallBelow,
+			byte[] weightToRight, byte[] weightBelow) throws IOException;
+}
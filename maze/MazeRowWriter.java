@@ -0,0 +1,80 @@
+package maze;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <P>A MazeRowSink that writes the rows to a stream in a compact binary
+ * form, so that a maze can be generated straight to a file.</P>
+ *
+ * <P>The stream starts with a header of the four bytes "MAZR", the
+ * format version (int, 1), the height (long) and the width (int).  Each
+ * row follows, all rows the same size:  the wallToRight flags and then
+ * the wallBelow flags, each packed eight to a byte with juncture x in
+ * bit x % 8 of byte x / 8, and then the weightToRight and weightBelow
+ * bytes.  Numbers are big-endian.</P>
+ */
+public class MazeRowWriter implements MazeRowSink, Closeable {
+
+	/** The first four bytes of the stream. */
+	public static final int MAGIC = 0x4D415A52;  // "MAZR"
+
+	/** The version of the format written. */
+	public static final int VERSION = 1;
+
+	private final DataOutputStream out;
+	private final byte[] bits;
+
+	/**
+	 * Writes the header straight away.
+	 *
+	 * @param out where to write the maze
+	 * @param mazeHeight number of rows that will follow
+	 * @param mazeWidth number of junctures in each row
+	 * @throws IOException if writing fails
+	 */
+	public MazeRowWriter(OutputStream out, long mazeHeight, int mazeWidth) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		bits = new byte[(mazeWidth + 7) / 8];
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+		this.out.writeLong(mazeHeight);
+		this.out.writeInt(mazeWidth);
+	}
+
+	public void acceptRow(long y, boolean[] wallToRight, boolean[] wallBelow,
+			byte[] weightToRight, byte[] weightBelow) throws IOException {
+		writeBits(wallToRight);
+		writeBits(wallBelow);
+		out.write(weightToRight);
+		out.write(weightBelow);
+	}
+
+	/** Writes out anything still buffered.
+	 * @throws IOException if writing fails
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/** Flushes and closes the underlying stream.
+	 * @throws IOException if writing fails
+	 */
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void writeBits(boolean[] flags) throws IOException {
+		Arrays.fill(bits, (byte) 0);
+		for (int x = 0; x < flags.length; x++) {
+			if (flags[x]) {
+				bits[x >>> 3] |= 1 << (x & 7);
+			}
+		}
+		out.write(bits);
+	}
+}
@@ -3,7 +3,40 @@ package tests;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
+import graph.AsyncObserver;
+import graph.BFSLevelObserver;
+import graph.BackpressurePolicy;
+import graph.CompactGraph;
+import graph.DijkstraMode;
+import graph.DynamicShortestPaths;
+import graph.EdgeListImporter;
+import graph.GraphAlgorithmObserver;
+import graph.ImplicitMazeGraph;
+import graph.MappedGraph;
+import graph.MazeGraph;
+import graph.OffHeapGraph;
+import graph.SearchEvent;
+import graph.ShortestPathResult;
+import graph.VertexCodec;
 import graph.WeightedGraph;
+import maze.EllerMazeGenerator;
+import maze.Juncture;
+import maze.Maze;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
 
 public class PublicTests {
 
@@ -56,6 +89,36 @@ public class PublicTests {
 		assertTrue(graph.getWeight("B", "D") == null);
 	}
 
+	@Test
+	public void testAddEdgeRejectsBadArguments() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		assertThrows(IllegalArgumentException.class, () -> graph.addVertex("A"));
+		assertThrows(IllegalArgumentException.class, () -> graph.addEdge("A", "X", 1));
+		assertThrows(IllegalArgumentException.class, () -> graph.addEdge("X", "A", 1));
+		assertThrows(IllegalArgumentException.class, () -> graph.addEdge("A", "B", -1));
+		assertNull(graph.getWeight("A", "B"));
+	}
+
+	@Test
+	public void testEdgeLookupOnHighDegreeVertex() {
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v <= 1000; v++) {
+			graph.addVertex(v);
+		}
+		for (int v = 1; v <= 1000; v += 2) {
+			graph.addEdge(0, v, v);
+		}
+		graph.addEdge(0, 1, 99); // duplicate, the first edge wins
+		for (int v = 1; v <= 1000; v++) {
+			assertEquals(v % 2 == 1, graph.containsEdge(0, v));
+			assertEquals(v % 2 == 1 ? Integer.valueOf(v) : null, graph.getWeight(0, v));
+		}
+		assertFalse(graph.containsEdge(1, 0));
+		assertThrows(IllegalArgumentException.class, () -> graph.containsEdge(0, 1001));
+	}
+
 	@Test
 	public void testDijsktras() {
 		WeightedGraph<String> graph = new WeightedGraph<String>();
@@ -93,4 +156,1118 @@ public class PublicTests {
 		graph.DoDijsktra("0", "5");
 	}
 	
+	@Test
+	public void testDijsktrasPathAndSettleOrder() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("0");
+		graph.addVertex("1");
+		graph.addVertex("2");
+		graph.addVertex("3");
+		graph.addVertex("4");
+		graph.addVertex("5");
+		graph.addVertex("6"); // unreachable
+		graph.addEdge("0", "1", 4);
+		graph.addEdge("0", "2", 3);
+		graph.addEdge("1", "2", 5);
+		graph.addEdge("1", "3", 2);
+		graph.addEdge("2", "3", 7);
+		graph.addEdge("3", "4", 2);
+		graph.addEdge("4", "0", 4);
+		graph.addEdge("4", "1", 4);
+		graph.addEdge("4", "5", 6);
+		RecordingObserver<String> observer = new RecordingObserver<String>();
+		graph.addObserver(observer);
+
+		graph.DoDijsktra("0", "5");
+
+		assertEquals(List.of("0", "1", "3", "4", "5"), observer.path);
+		assertEquals(6, observer.finished.size());
+		assertEquals(14, (int) observer.finishedCosts.get(5));
+		for (int i = 1; i < observer.finishedCosts.size(); i++) {
+			assertTrue(observer.finishedCosts.get(i - 1) <= observer.finishedCosts.get(i));
+		}
+	}
+
+	@Test
+	public void testDijsktrasScalesToOneMillionVertices() {
+		for (int side = 250; side <= 1000; side *= 2) {
+			WeightedGraph<Integer> graph = gridGraph(side);
+			RecordingObserver<Integer> observer = new RecordingObserver<Integer>();
+			graph.addObserver(observer);
+
+			graph.DoDijsktra(0, side * side - 1);
+
+			assertEquals(side * side, observer.finished.size());
+			assertEquals(0, (int) observer.path.get(0));
+			assertEquals(side * side - 1, (int) observer.path.get(observer.path.size() - 1));
+			// Every step of the reported path must be an edge of the graph
+			for (int i = 1; i < observer.path.size(); i++) {
+				assertNotNull(graph.getWeight(observer.path.get(i - 1), observer.path.get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testFrozenGraphMatchesWeightedGraph() {
+		WeightedGraph<Integer> graph = gridGraph(20);
+		CompactGraph<Integer> frozen = graph.freeze();
+		assertEquals(400, frozen.vertexCount());
+		assertEquals(2 * 2 * 20 * 19, frozen.edgeCount());
+		assertEquals(graph.getWeight(21, 22), frozen.getWeight(21, 22));
+		assertNull(frozen.getWeight(0, 21));
+		assertFalse(frozen.containsVertex(400));
+
+		RecordingObserver<Integer> expected = new RecordingObserver<Integer>();
+		RecordingObserver<Integer> actual = new RecordingObserver<Integer>();
+		graph.addObserver(expected);
+		frozen.addObserver(actual);
+
+		graph.DoBFS(0, 399);
+		frozen.DoBFS(0, 399);
+		graph.DoDFS(0, 399);
+		frozen.DoDFS(0, 399);
+		graph.DoDijsktra(0, 399);
+		frozen.DoDijsktra(0, 399);
+
+		assertEquals(expected.visited, actual.visited);
+		assertEquals(expected.finishedCosts, actual.finishedCosts);
+		assertEquals(expected.path, actual.path);
+	}
+
+	@Test
+	public void testTraversalsVisitEachJunctureOnceOnMazeGraph() {
+		for (int side = 250; side <= 1000; side *= 2) {
+			Maze maze = new Maze(side, side, 0, side);
+			MazeGraph graph = new MazeGraph(maze);
+			RecordingObserver<Juncture> observer = new RecordingObserver<Juncture>();
+			graph.addObserver(observer);
+			Juncture start = new Juncture(0, 0);
+
+			// Nothing leads to a juncture off the maze, so each search
+			// goes over the whole maze, visiting every juncture once.
+			// TraversalBenchmark times the searches as the maze grows.
+			Juncture end = new Juncture(-1, -1);
+			graph.addVertex(end);
+			int junctures = maze.getMazeWidth() * maze.getMazeHeight();
+
+			graph.DoBFS(start, end);
+			assertEquals(junctures, observer.visited.size());
+			assertEquals(junctures, new HashSet<Juncture>(observer.visited).size());
+			observer.visited.clear();
+
+			graph.DoDFS(start, end);
+			assertEquals(junctures, observer.visited.size());
+			assertEquals(junctures, new HashSet<Juncture>(observer.visited).size());
+		}
+	}
+
+	@Test
+	public void testDijsktraModesAgreeOnCost() {
+		MazeGraph graph = new MazeGraph(new Maze(200, 200, 30, 7));
+		RecordingObserver<Juncture> observer = new RecordingObserver<Juncture>();
+		graph.addObserver(observer);
+		int[][] queries = {{0, 0, 199, 199}, {10, 20, 150, 30}, {120, 120, 120, 120}, {199, 0, 0, 199}};
+		for (int[] q : queries) {
+			Juncture start = new Juncture(q[0], q[1]);
+			Juncture end = new Juncture(q[2], q[3]);
+			int[] finished = new int[3];
+			int[] cost = new int[3];
+			for (DijkstraMode mode : DijkstraMode.values()) {
+				observer.finished.clear();
+				graph.DoDijsktra(start, end, mode);
+				finished[mode.ordinal()] = observer.finished.size();
+				cost[mode.ordinal()] = pathCost(graph, observer.path);
+				assertEquals(start, observer.path.get(0));
+				assertEquals(end, observer.path.get(observer.path.size() - 1));
+			}
+			assertEquals(cost[0], cost[1]);
+			assertEquals(cost[0], cost[2]);
+			assertTrue(finished[1] <= finished[0]);
+			assertTrue(finished[2] <= finished[1]);
+		}
+	}
+
+	@Test
+	public void testAStarFindsLowestCostPath() {
+		MazeGraph graph = new MazeGraph(new Maze(200, 200, 60, 11));
+		RecordingObserver<Juncture> observer = new RecordingObserver<Juncture>();
+		graph.addObserver(observer);
+		Juncture start = new Juncture(5, 5);
+		Juncture end = new Juncture(180, 190);
+
+		graph.DoDijsktra(start, end, DijkstraMode.POINT_TO_POINT);
+		int dijkstraCost = pathCost(graph, observer.path);
+		int dijkstraFinished = observer.finished.size();
+		observer.finished.clear();
+
+		graph.DoAStar(start, end);
+		assertEquals(dijkstraCost, pathCost(graph, observer.path));
+		assertEquals(start, observer.path.get(0));
+		assertEquals(end, observer.path.get(observer.path.size() - 1));
+		assertTrue(observer.finished.size() < dijkstraFinished);
+	}
+
+	@Test
+	public void testParallelShortestPathsFromManySources() {
+		WeightedGraph<Integer> graph = gridGraph(60);
+		graph.addVertex(-1); // unreachable
+		List<Integer> sources = List.of(0, 100, 1234, 3599, 100);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Map<Integer, ShortestPathResult<Integer>> results = graph.shortestPathsFrom(sources, pool);
+		pool.shutdown();
+		assertEquals(List.of(0, 100, 1234, 3599), new ArrayList<Integer>(results.keySet()));
+
+		RecordingObserver<Integer> observer = new RecordingObserver<Integer>();
+		graph.addObserver(observer);
+		for (ShortestPathResult<Integer> result : results.values()) {
+			int source = result.getSource();
+			assertEquals(0, (int) result.costTo(source));
+			assertNull(result.predecessorOf(source));
+			assertNull(result.costTo(-1));
+			for (int target = 7; target < 3600; target += 501) {
+				graph.DoDijsktra(source, target, DijkstraMode.POINT_TO_POINT);
+				assertEquals(pathCost(graph, observer.path), (int) result.costTo(target));
+				int pred = result.predecessorOf(target);
+				assertEquals(result.costTo(target) - graph.getWeight(pred, target), (int) result.costTo(pred));
+			}
+		}
+	}
+
+	@Test
+	public void testParallelBFSHopCountsOnGrid() {
+		int side = 300;
+		WeightedGraph<Integer> graph = gridGraph(side);
+		graph.addVertex(-1); // unreachable
+		List<Integer> levelSizes = new ArrayList<Integer>();
+		BFSLevelObserver<Integer> levels = (level, vertices) -> {
+			assertEquals(levelSizes.size(), level);
+			levelSizes.add(vertices.size());
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ShortestPathResult<Integer> result = graph.parallelBFS(0, pool, levels);
+		pool.shutdown();
+
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				int v = y * side + x;
+				assertEquals(x + y, (int) result.costTo(v));
+				if (v != 0) {
+					int parent = result.predecessorOf(v);
+					assertTrue(graph.containsEdge(parent, v));
+					assertEquals(x + y - 1, (int) result.costTo(parent));
+				}
+			}
+		}
+		assertNull(result.costTo(-1));
+		assertEquals(2 * side - 1, levelSizes.size());
+		assertEquals(side, (int) levelSizes.get(side - 1));
+	}
+
+	@Test
+	public void testParallelBFSHopCountsOnRandomGraph() {
+		// Few levels with huge frontiers, so most levels are expanded
+		// bottom-up
+		int n = 50000;
+		Random random = new Random(5);
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		List<List<Integer>> adjacency = new ArrayList<List<Integer>>();
+		for (int v = 0; v < n; v++) {
+			graph.addVertex(v);
+			adjacency.add(new ArrayList<Integer>());
+		}
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < 8; i++) {
+				int w = random.nextInt(n);
+				graph.addEdge(v, w, 1);
+				adjacency.get(v).add(w);
+			}
+		}
+
+		int[] expected = new int[n];
+		Arrays.fill(expected, -1);
+		expected[0] = 0;
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>(List.of(0));
+		while (!queue.isEmpty()) {
+			int v = queue.remove();
+			for (int w : adjacency.get(v)) {
+				if (expected[w] < 0) {
+					expected[w] = expected[v] + 1;
+					queue.add(w);
+				}
+			}
+		}
+
+		ShortestPathResult<Integer> result = graph.parallelBFS(0);
+		for (int v = 0; v < n; v++) {
+			assertEquals(expected[v] < 0 ? null : Integer.valueOf(expected[v]), result.costTo(v));
+			if (expected[v] > 0) {
+				assertTrue(adjacency.get(result.predecessorOf(v)).contains(v));
+			}
+		}
+	}
+
+	@Test
+	public void testDeltaSteppingMatchesDijkstra() {
+		int n = 20000;
+		Random random = new Random(9);
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < n; v++) {
+			graph.addVertex(v);
+		}
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < 4; i++) {
+				graph.addEdge(v, random.nextInt(n), random.nextInt(i == 0 ? 3 : 100));
+			}
+		}
+
+		ShortestPathResult<Integer> expected = graph.shortestPathsFrom(List.of(0)).get(0);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int delta : new int[] {1, 10, 50, 1000}) {
+			ShortestPathResult<Integer> result = graph.deltaStepping(0, delta, pool);
+			for (int v = 0; v < n; v++) {
+				assertEquals(expected.costTo(v), result.costTo(v));
+				Integer pred = result.predecessorOf(v);
+				if (pred != null) {
+					assertEquals((int) result.costTo(v), result.costTo(pred) + graph.getWeight(pred, v));
+				} else {
+					assertTrue(v == 0 || result.costTo(v) == null);
+				}
+			}
+		}
+
+		// Costs far beyond the largest weight only need buckets for one
+		// weight's worth of costs at a time
+		WeightedGraph<Integer> chain = new WeightedGraph<Integer>();
+		for (int v = 0; v <= 1000; v++) {
+			chain.addVertex(v);
+			if (v > 0) {
+				chain.addEdge(v - 1, v, 1_000_000 - v);
+			}
+		}
+		ShortestPathResult<Integer> far = chain.deltaStepping(0, 1, pool);
+		ShortestPathResult<Integer> near = chain.shortestPathsFrom(List.of(0)).get(0);
+		for (int v = 0; v <= 1000; v++) {
+			assertEquals(near.costTo(v), far.costTo(v));
+		}
+		assertTrue(far.costTo(1000) > 900_000_000);
+
+		// Unless even one weight needs too many
+		chain.addEdge(1000, 0, 100_000_000);
+		assertThrows(IllegalArgumentException.class, () -> chain.deltaStepping(0, 1, pool));
+		assertEquals(far.costTo(1000), chain.deltaStepping(0, 100, pool).costTo(1000));
+		pool.shutdown();
+	}
+
+	@Test
+	public void testBucketQueueMatchesHeap() {
+		// Both graphs have the same edges, with weights 0 to 20, but the
+		// second also has one heavy edge out of an extra vertex that
+		// cannot be reached, so only the first uses a bucket queue
+		int n = 20000;
+		Random random = new Random(11);
+		WeightedGraph<Integer> light = new WeightedGraph<Integer>();
+		WeightedGraph<Integer> heavy = new WeightedGraph<Integer>();
+		for (int v = 0; v <= n; v++) {
+			light.addVertex(v);
+			heavy.addVertex(v);
+		}
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < 4; i++) {
+				int to = random.nextInt(n);
+				int weight = random.nextInt(21);
+				light.addEdge(v, to, weight);
+				heavy.addEdge(v, to, weight);
+			}
+		}
+		heavy.addEdge(n, 0, 1000);
+
+		RecordingObserver<Integer> lightObserver = new RecordingObserver<>();
+		RecordingObserver<Integer> heavyObserver = new RecordingObserver<>();
+		light.addObserver(lightObserver);
+		heavy.addObserver(heavyObserver);
+		for (int start = 0; start < 10; start++) {
+			lightObserver.finishedCosts.clear();
+			light.DoDijsktra(start, n - 1);
+			heavy.DoDijsktra(start, n - 1);
+			assertEquals(pathCost(heavy, heavyObserver.path), pathCost(light, lightObserver.path));
+
+			// The queue is settled in cost order
+			for (int i = 1; i < lightObserver.finishedCosts.size(); i++) {
+				assertTrue(lightObserver.finishedCosts.get(i - 1) <= lightObserver.finishedCosts.get(i));
+			}
+		}
+
+		// Each worker thread reuses its queue for many sources
+		List<Integer> sources = new ArrayList<Integer>();
+		for (int v = 0; v < 30; v++) {
+			sources.add(v);
+		}
+		Map<Integer, ShortestPathResult<Integer>> fromLight = light.freeze().shortestPathsFrom(sources);
+		Map<Integer, ShortestPathResult<Integer>> fromHeavy = heavy.freeze().shortestPathsFrom(sources);
+		for (int source : sources) {
+			for (int v = 0; v < n; v++) {
+				assertEquals(fromHeavy.get(source).costTo(v), fromLight.get(source).costTo(v));
+			}
+		}
+	}
+
+	@Test
+	public void testImplicitMazeGraphMatchesMazeGraph() {
+		Maze maze = new Maze(120, 150, 30, 5);
+		MazeGraph graph = new MazeGraph(maze);
+		ImplicitMazeGraph implicit = new ImplicitMazeGraph(maze);
+		assertEquals(120 * 150, implicit.vertexCount());
+		assertFalse(implicit.containsVertex(new Juncture(150, 0)));
+
+		int[][] steps = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+		for (int y = 0; y < 120; y++) {
+			for (int x = 0; x < 150; x++) {
+				for (int[] step : steps) {
+					Juncture to = new Juncture(x + step[0], y + step[1]);
+					if (implicit.containsVertex(to)) {
+						assertEquals(graph.getWeight(new Juncture(x, y), to), implicit.getWeight(new Juncture(x, y), to));
+					}
+				}
+			}
+		}
+
+		RecordingObserver<Juncture> expected = new RecordingObserver<Juncture>();
+		RecordingObserver<Juncture> actual = new RecordingObserver<Juncture>();
+		graph.addObserver(expected);
+		implicit.addObserver(actual);
+		Juncture start = new Juncture(3, 4);
+		Juncture end = new Juncture(140, 110);
+		graph.DoDijsktra(start, end);
+		implicit.DoDijsktra(start, end);
+		assertEquals(pathCost(graph, expected.path), pathCost(graph, actual.path));
+		assertEquals(new HashSet<Juncture>(expected.finished), new HashSet<Juncture>(actual.finished));
+
+		expected.path = null;
+		actual.path = null;
+		graph.DoDijsktra(start, end, DijkstraMode.BIDIRECTIONAL);
+		implicit.DoDijsktra(start, end, DijkstraMode.BIDIRECTIONAL);
+		assertEquals(pathCost(graph, expected.path), pathCost(graph, actual.path));
+
+		ShortestPathResult<Juncture> hops = implicit.parallelBFS(start, ForkJoinPool.commonPool(), null);
+		ShortestPathResult<Juncture> expectedHops = graph.parallelBFS(start);
+		for (Juncture juncture : expected.finished) {
+			assertEquals(expectedHops.costTo(juncture), hops.costTo(juncture));
+		}
+	}
+
+	@Test
+	public void testMazeWallsAndWeights() {
+		// Odd sizes, so rows do not line up with the 64-bit wall words
+		Maze maze = new Maze(37, 71, 40, 3);
+		for (int y = 0; y < 37; y++) {
+			for (int x = 0; x < 71; x++) {
+				Juncture juncture = new Juncture(x, y);
+				assertTrue(y > 0 || maze.isWallAbove(juncture));
+				assertTrue(x < 70 || maze.isWallToRight(juncture));
+				assertEquals(maze.isWallAbove(juncture), maze.isWallAbove(x, y));
+				assertEquals(maze.isWallBelow(juncture), maze.isWallBelow(x, y));
+				assertEquals(maze.isWallToLeft(juncture), maze.isWallToLeft(x, y));
+				assertEquals(maze.isWallToRight(juncture), maze.isWallToRight(x, y));
+				if (y > 0) {
+					assertEquals(maze.isWallAbove(juncture), maze.isWallBelow(new Juncture(x, y - 1)));
+					assertEquals(maze.getWeightAbove(juncture), maze.getWeightBelow(new Juncture(x, y - 1)));
+				}
+				if (x > 0) {
+					assertEquals(maze.isWallToLeft(juncture), maze.isWallToRight(new Juncture(x - 1, y)));
+					assertEquals(maze.getWeightToLeft(juncture), maze.getWeightToRight(new Juncture(x - 1, y)));
+					int weight = maze.getWeightToLeft(x, y);
+					assertTrue(weight >= 1 && weight <= Maze.MAX_WEIGHT);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEllerMazeIsASpanningTree() throws IOException {
+		int width = 61;
+		int height = 43;
+		int[] parent = new int[width * height];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		int[] passages = new int[1];
+		EllerMazeGenerator generator = new EllerMazeGenerator(height, width, 0, 17);
+		generator.generate((y, wallToRight, wallBelow, weightToRight, weightBelow) -> {
+			assertTrue(wallToRight[width - 1]);
+			for (int x = 0; x < width; x++) {
+				int here = (int) y * width + x;
+				if (!wallToRight[x]) {
+					assertTrue(weightToRight[x] >= 1 && weightToRight[x] <= Maze.MAX_WEIGHT);
+					// A second path between two junctures would close a cycle
+					assertTrue(union(parent, here, here + 1));
+					passages[0]++;
+				}
+				if (!wallBelow[x]) {
+					assertTrue(y < height - 1);
+					assertTrue(union(parent, here, here + width));
+					passages[0]++;
+				}
+			}
+		});
+		assertEquals(width * height - 1, passages[0]);
+
+		// The same seed gives the same bytes; sparcity removes walls
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		ByteArrayOutputStream second = new ByteArrayOutputStream();
+		new EllerMazeGenerator(height, width, 30, 5).writeTo(first);
+		new EllerMazeGenerator(height, width, 30, 5).writeTo(second);
+		assertEquals(20 + height * (2 * 8 + 2 * width), first.size());
+		assertTrue(Arrays.equals(first.toByteArray(), second.toByteArray()));
+
+		int[] sparse = new int[1];
+		new EllerMazeGenerator(height, width, 30, 17).generate((y, wallToRight, wallBelow, weightToRight, weightBelow) -> {
+			for (int x = 0; x < width; x++) {
+				sparse[0] += (wallToRight[x] ? 0 : 1) + (wallBelow[x] ? 0 : 1);
+			}
+		});
+		assertTrue(sparse[0] > passages[0]);
+	}
+
+	private static boolean union(int[] parent, int a, int b) {
+		while (parent[a] != a) {
+			a = parent[a];
+		}
+		while (parent[b] != b) {
+			b = parent[b];
+		}
+		parent[a] = b;
+		return a != b;
+	}
+
+	@Test
+	public void testTiledMazeIsDeterministicSpanningTree() {
+		int width = 90;
+		int height = 70;
+		ForkJoinPool one = new ForkJoinPool(1);
+		ForkJoinPool three = new ForkJoinPool(3);
+		Maze maze = Maze.tiled(height, width, 0, 21, 16, one);
+		Maze again = Maze.tiled(height, width, 0, 21, 16, three);
+		one.shutdown();
+		three.shutdown();
+
+		int[] parent = new int[width * height];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		int passages = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int here = y * width + x;
+				assertEquals(maze.isWallBelow(x, y), again.isWallBelow(x, y));
+				assertEquals(maze.isWallToRight(x, y), again.isWallToRight(x, y));
+				assertTrue(y > 0 || maze.isWallAbove(x, y));
+				assertTrue(x > 0 || maze.isWallToLeft(x, y));
+				if (!maze.isWallBelow(x, y)) {
+					assertTrue(union(parent, here, here + width));
+					assertEquals(maze.getWeightBelow(x, y), again.getWeightBelow(x, y));
+					assertTrue(maze.getWeightBelow(x, y) >= 1);
+					passages++;
+				}
+				if (!maze.isWallToRight(x, y)) {
+					assertTrue(union(parent, here, here + 1));
+					assertEquals(maze.getWeightToRight(x, y), again.getWeightToRight(x, y));
+					assertTrue(maze.getWeightToRight(x, y) >= 1);
+					passages++;
+				}
+			}
+		}
+		assertEquals(width * height - 1, passages);
+
+		// The constructor is deterministic too
+		Maze first = new Maze(30, 40, 20, 8);
+		Maze second = new Maze(30, 40, 20, 8);
+		for (int y = 0; y < 30; y++) {
+			for (int x = 0; x < 40; x++) {
+				assertEquals(first.isWallBelow(x, y), second.isWallBelow(x, y));
+				assertEquals(first.isWallToRight(x, y), second.isWallToRight(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testJunctureHashAndCache() {
+		// The old hash, x + 10000 * y, collided as soon as x reached 10000
+		HashSet<Integer> hashes = new HashSet<Integer>();
+		for (int y = 0; y < 4; y++) {
+			for (int x = 0; x < 50000; x++) {
+				assertTrue(hashes.add(new Juncture(x, y).hashCode()));
+			}
+		}
+
+		Maze maze = new Maze(20, 30, 0, 4);
+		Juncture juncture = maze.juncture(29, 19);
+		assertEquals(new Juncture(29, 19), juncture);
+		assertTrue(juncture == maze.juncture(29, 19));
+		assertThrows(IllegalArgumentException.class, () -> maze.juncture(30, 0));
+	}
+
+	@Test
+	public void testAsyncObserverDeliversInOrder() {
+		WeightedGraph<Integer> graph = gridGraph(60);
+		RecordingObserver<Integer> direct = new RecordingObserver<Integer>();
+		RecordingObserver<Integer> delivered = new RecordingObserver<Integer>();
+		AsyncObserver<Integer> async = new AsyncObserver<Integer>(delivered, 64, BackpressurePolicy.BLOCK);
+		graph.addObserver(direct);
+		graph.addObserver(async);
+		graph.DoDijsktra(0, 60 * 60 - 1);
+		graph.DoBFS(0, 60 * 60 - 1);
+		async.close();
+		assertEquals(direct.finished, delivered.finished);
+		assertEquals(direct.finishedCosts, delivered.finishedCosts);
+		assertEquals(direct.path, delivered.path);
+		assertEquals(direct.visited, delivered.visited);
+		assertTrue(delivered.searchOver);
+		assertEquals(0L, async.droppedCount());
+	}
+
+	@Test
+	public void testAsyncObserverStopsOnError() {
+		WeightedGraph<Integer> graph = gridGraph(30);
+		RecordingObserver<Integer> failing = new RecordingObserver<Integer>() {
+			public void notifyVisit(Integer vertex) {
+				throw new AssertionError();
+			}
+		};
+		AsyncObserver<Integer> async = new AsyncObserver<Integer>(failing, 4, BackpressurePolicy.BLOCK);
+		graph.addObserver(async);
+
+		// The buffer fills behind the event that failed, and the search
+		// gives up rather than waiting for room forever
+		assertThrows(IllegalStateException.class, () -> graph.DoBFS(0, 30 * 30 - 1));
+		assertThrows(IllegalStateException.class, () -> async.close());
+	}
+
+	@Test
+	public void testAsyncObserverDoesNotStallSearch() {
+		for (BackpressurePolicy policy : new BackpressurePolicy[] {BackpressurePolicy.DROP, BackpressurePolicy.COALESCE}) {
+			WeightedGraph<Integer> graph = gridGraph(100);
+			CountDownLatch finishedAll = new CountDownLatch(1);
+			RecordingObserver<Integer> stuck = new RecordingObserver<Integer>() {
+				public void notifyDijkstraVertexFinished(Integer vertex, Integer cost) {
+					try {
+						finishedAll.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					super.notifyDijkstraVertexFinished(vertex, cost);
+				}
+			};
+			RecordingObserver<Integer> direct = new RecordingObserver<Integer>() {
+				public void notifyDijkstraIsOver(List<Integer> path) {
+					super.notifyDijkstraIsOver(path);
+					finishedAll.countDown();
+				}
+			};
+			AsyncObserver<Integer> async = new AsyncObserver<Integer>(stuck, 16, policy);
+			graph.addObserver(direct);
+			graph.addObserver(async);
+
+			// The observer takes nothing more until every vertex has been
+			// finished, so the search only gets there if it never waits
+			graph.DoDijsktra(0, 100 * 100 - 1);
+			async.close();
+			assertEquals(direct.path, stuck.path);
+			assertEquals(direct.finished.size(), stuck.finished.size() + async.droppedCount());
+			// Only about a bufferful got past the observer that was stuck
+			assertTrue(stuck.finished.size() <= 2 * 16);
+
+			// What was delivered came in the order of the search
+			int next = 0;
+			for (Integer vertex : stuck.finished) {
+				int at = direct.finished.subList(next, direct.finished.size()).indexOf(vertex);
+				assertTrue(at >= 0);
+				next += at + 1;
+			}
+			if (policy == BackpressurePolicy.COALESCE) {
+				// The newest event is never the one lost
+				assertEquals(direct.finished.get(direct.finished.size() - 1),
+						stuck.finished.get(stuck.finished.size() - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testObserverSubscriptions() {
+		WeightedGraph<Integer> graph = gridGraph(30);
+		RecordingObserver<Integer> all = new RecordingObserver<Integer>();
+		RecordingObserver<Integer> endOnly = new RecordingObserver<Integer>();
+		RecordingObserver<Integer> visitsOnly = new RecordingObserver<Integer>();
+		graph.addObserver(all);
+		graph.addObserver(endOnly, EnumSet.of(SearchEvent.END));
+		graph.addObserver(visitsOnly, EnumSet.of(SearchEvent.VISIT));
+
+		graph.DoDijsktra(0, 30 * 30 - 1);
+		graph.DoBFS(0, 30 * 30 - 1);
+		assertEquals(all.path, endOnly.path);
+		assertTrue(endOnly.searchOver);
+		assertTrue(endOnly.finished.isEmpty() && endOnly.visited.isEmpty());
+		assertEquals(all.visited, visitsOnly.visited);
+		assertNull(visitsOnly.path);
+		assertFalse(visitsOnly.searchOver);
+		assertTrue(visitsOnly.finished.isEmpty());
+
+		// Snapshots copy the subscriptions
+		RecordingObserver<Integer> frozenEnd = new RecordingObserver<Integer>();
+		CompactGraph<Integer> frozen = graph.freeze();
+		frozen.addObserver(frozenEnd, EnumSet.of(SearchEvent.END));
+		endOnly.path = null;
+		frozen.DoDijsktra(0, 30 * 30 - 1, DijkstraMode.BIDIRECTIONAL);
+		assertEquals(pathCost(graph, all.path), pathCost(graph, frozenEnd.path));
+		assertEquals(frozenEnd.path, endOnly.path);
+		assertTrue(frozenEnd.finished.isEmpty());
+	}
+
+	@Test
+	public void testShortestPathsAnswersManyTargets() {
+		WeightedGraph<Integer> graph = gridGraph(20);
+		graph.addVertex(-1);
+		ShortestPathResult<Integer> result = graph.shortestPaths(0);
+		RecordingObserver<Integer> observer = new RecordingObserver<Integer>();
+		graph.addObserver(observer);
+		for (int target : new int[] { 0, 19, 210, 399 }) {
+			graph.DoDijsktra(0, target);
+			List<Integer> path = result.pathTo(target);
+			assertEquals(pathCost(graph, observer.path), pathCost(graph, path));
+			assertEquals(pathCost(graph, path), (long) result.costTo(target));
+			assertEquals(Integer.valueOf(0), path.get(0));
+			assertEquals(Integer.valueOf(target), path.get(path.size() - 1));
+		}
+		assertNull(result.costTo(-1));
+		assertTrue(result.pathTo(-1).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> result.pathTo(1000));
+		assertThrows(IllegalArgumentException.class, () -> graph.shortestPaths(1000));
+	}
+
+	@Test
+	public void testShortestPathCache() {
+		WeightedGraph<Integer> graph = gridGraph(10);
+		graph.setPathCacheCapacity(2);
+		ShortestPathResult<Integer> first = graph.shortestPaths(0);
+		assertTrue(first == graph.shortestPaths(0));
+		graph.shortestPaths(5);
+		graph.shortestPaths(0);
+		graph.shortestPaths(9);	// pushes out 5, the least recently used
+		assertEquals(3L, graph.pathCacheMisses());
+		assertEquals(2L, graph.pathCacheHits());
+		graph.shortestPaths(0);
+		assertEquals(3L, graph.pathCacheHits());
+		graph.shortestPaths(5);
+		assertEquals(4L, graph.pathCacheMisses());
+
+		// Any change to the graph makes the cached results stale
+		graph.addEdge(0, 99, 0);
+		ShortestPathResult<Integer> after = graph.shortestPaths(0);
+		assertTrue(after != first);
+		assertEquals(Integer.valueOf(0), after.costTo(99));
+		assertEquals(5L, graph.pathCacheMisses());
+	}
+
+	@Test
+	public void testDynamicShortestPathsFollowChanges() {
+		Random random = new Random(21);
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < 60; v++) {
+			graph.addVertex(v);
+		}
+		for (int e = 0; e < 200; e++) {
+			graph.addEdge(random.nextInt(60), random.nextInt(60), random.nextInt(6));
+		}
+		DynamicShortestPaths<Integer> tracked = graph.trackShortestPaths(0);
+		for (int step = 0; step < 400; step++) {
+			int from = random.nextInt(60 + step / 40);
+			int to = random.nextInt(60 + step / 40);
+			int change = random.nextInt(4);
+			if (step % 40 == 39) {
+				graph.addVertex(60 + step / 40);
+			} else if (change == 0) {
+				graph.addEdge(from, to, random.nextInt(6));
+			} else if (!graph.containsEdge(from, to)) {
+				continue;
+			} else if (change == 1) {
+				graph.removeEdge(from, to);
+			} else {
+				graph.updateWeight(from, to, random.nextInt(6));
+			}
+
+			ShortestPathResult<Integer> expected = graph.shortestPaths(0);
+			for (int v = 0; v < 60 + step / 40; v++) {
+				assertEquals(expected.costTo(v), tracked.costTo(v));
+				List<Integer> path = tracked.pathTo(v);
+				assertEquals(expected.costTo(v) == null, path.isEmpty());
+				for (int i = 1; i < path.size(); i++) {
+					assertTrue(graph.containsEdge(path.get(i - 1), path.get(i)));
+				}
+			}
+		}
+		tracked.close();
+		graph.addEdge(0, 59, 0);
+		assertEquals(Integer.valueOf(0), graph.shortestPaths(0).costTo(59));
+	}
+
+	@Test
+	public void testDynamicShortestPathsRepairLocally() {
+		WeightedGraph<Integer> graph = gridGraph(30);
+		DynamicShortestPaths<Integer> tracked = graph.trackShortestPaths(0);
+		assertEquals(30 * 30, tracked.lastRepairSize());
+
+		// Cutting off the far corner only changes the costs near it
+		int corner = 30 * 30 - 1;
+		graph.removeEdge(corner - 1, corner);
+		graph.updateWeight(corner - 30, corner, 100);
+		assertTrue(tracked.lastRepairSize() <= 1);
+		assertEquals(tracked.costTo(corner - 30) + 100, (long) tracked.costTo(corner));
+		graph.updateWeight(corner - 30, corner, 1);
+		assertTrue(tracked.lastRepairSize() <= 1);
+		assertEquals(tracked.costTo(corner - 30) + 1, (long) tracked.costTo(corner));
+		assertEquals(graph.shortestPaths(0).costTo(corner), tracked.costTo(corner));
+		assertThrows(IllegalArgumentException.class, () -> graph.updateWeight(0, corner, 1));
+	}
+
+	@Test
+	public void testBuilderMatchesAddEdge() {
+		WeightedGraph<Integer> expected = gridGraph(20);
+		WeightedGraph.Builder<Integer> builder = new WeightedGraph.Builder<Integer>(400, 0);
+		for (int v = 0; v < 400; v++) {
+			builder.addVertex(v);
+		}
+		assertThrows(IllegalArgumentException.class, () -> builder.addVertex(7));
+		int[] from = new int[2000];
+		int[] to = new int[2000];
+		int[] weights = new int[2000];
+		int count = 0;
+		for (int v = 0; v < 400; v++) {
+			for (int w = 0; w < 400; w++) {
+				Integer weight = expected.getWeight(v, w);
+				if (weight != null && v % 2 == 0) {
+					builder.addEdge(v, w, weight);
+				} else if (weight != null) {
+					from[count] = v;
+					to[count] = w;
+					weights[count++] = weight;
+				}
+			}
+		}
+		builder.addEdges(from, to, weights, count);
+		WeightedGraph<Integer> built = builder.build();
+		for (int v = 0; v < 400; v++) {
+			for (int w = 0; w < 400; w++) {
+				assertEquals(expected.getWeight(v, w), built.getWeight(v, w));
+			}
+		}
+		assertEquals(expected.shortestPaths(0).costTo(399), built.shortestPaths(0).costTo(399));
+		assertThrows(IllegalStateException.class, () -> builder.build());
+
+		// The built graph can still grow one element at a time
+		built.addVertex(400);
+		built.addEdge(399, 400, 2);
+		built.addEdge(0, 0, 1);
+		assertEquals(Integer.valueOf(2), built.getWeight(399, 400));
+
+		WeightedGraph.Builder<String> bad = new WeightedGraph.Builder<String>().addVertex("A");
+		assertThrows(IllegalArgumentException.class, () -> bad.addEdge("A", "B", 1));
+		bad.addEdgeByIndex(0, 1, 1);
+		assertThrows(IllegalArgumentException.class, () -> bad.build());
+	}
+
+	@Test
+	public void testSavedGraphsAndMazesReopen() throws IOException {
+		Path file = Files.createTempFile("graph", ".bin");
+		try {
+			Maze maze = new Maze(30, 40, 20, 23);
+			maze.save(file);
+			Maze loaded = Maze.load(file);
+			for (int y = 0; y < 30; y++) {
+				for (int x = 0; x < 40; x++) {
+					assertEquals(maze.isWallToRight(x, y), loaded.isWallToRight(x, y));
+					assertEquals(maze.isWallBelow(x, y), loaded.isWallBelow(x, y));
+					if (x < 39) {
+						assertEquals(maze.getWeightToRight(x, y), loaded.getWeightToRight(x, y));
+					}
+					if (y < 29) {
+						assertEquals(maze.getWeightBelow(x, y), loaded.getWeightBelow(x, y));
+					}
+				}
+			}
+
+			MazeGraph graph = new MazeGraph(maze);
+			graph.save(file, VertexCodec.junctures());
+			MappedGraph<Juncture> mapped = MappedGraph.open(file, VertexCodec.junctures());
+			assertEquals(30 * 40, mapped.vertexCount());
+			Juncture start = new Juncture(0, 0);
+			Juncture end = new Juncture(39, 29);
+			RecordingObserver<Juncture> fromGraph = new RecordingObserver<Juncture>();
+			RecordingObserver<Juncture> fromFile = new RecordingObserver<Juncture>();
+			graph.addObserver(fromGraph);
+			mapped.addObserver(fromFile);
+			graph.DoDijsktra(start, end);
+			mapped.DoDijsktra(start, end);
+			assertEquals(fromGraph.finished, fromFile.finished);
+			assertEquals(fromGraph.path, fromFile.path);
+			assertEquals(graph.getWeight(start, new Juncture(1, 0)), mapped.getWeight(start, new Juncture(1, 0)));
+			assertFalse(mapped.containsVertex(new Juncture(40, 0)));
+
+			WeightedGraph<String> named = new WeightedGraph<String>();
+			named.addVertex("Chicago");
+			named.addVertex("Zürich");
+			named.addEdge("Chicago", "Zürich", 7);
+			named.save(file, VertexCodec.strings());
+			MappedGraph<String> mappedNames = MappedGraph.open(file, VertexCodec.strings());
+			assertEquals(Integer.valueOf(7), mappedNames.getWeight("Chicago", "Zürich"));
+			assertNull(mappedNames.getWeight("Zürich", "Chicago"));
+			assertEquals("Zürich", mappedNames.shortestPaths("Chicago").pathTo("Zürich").get(1));
+			assertThrows(IllegalArgumentException.class, () -> mappedNames.getWeight("Boston", "Chicago"));
+
+			Files.write(file, new byte[] { 1, 2, 3 });
+			assertThrows(IOException.class, () -> Maze.load(file));
+			assertThrows(IOException.class, () -> MappedGraph.open(file, VertexCodec.strings()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testOffHeapGraphMatchesWeightedGraph() {
+		WeightedGraph<Integer> graph = gridGraph(30);
+		OffHeapGraph.Builder<Integer> builder = new OffHeapGraph.Builder<Integer>(0, 16);
+		for (int v = 0; v < 30 * 30; v++) {
+			builder.addVertex(v);
+		}
+		for (int v = 0; v < 30 * 30; v++) {
+			for (int w : new int[] { v - 30, v + 1, v + 30, v - 1 }) {
+				if (w >= 0 && w < 30 * 30 && graph.containsEdge(v, w)) {
+					builder.addEdge(v, w, graph.getWeight(v, w));
+				}
+			}
+		}
+		OffHeapGraph<Integer> offHeap = builder.build();
+		assertEquals(30 * 30, offHeap.vertexCount());
+
+		RecordingObserver<Integer> onHeap = new RecordingObserver<Integer>();
+		RecordingObserver<Integer> direct = new RecordingObserver<Integer>();
+		graph.addObserver(onHeap);
+		offHeap.addObserver(direct);
+		graph.DoDijsktra(0, 30 * 30 - 1);
+		offHeap.DoDijsktra(0, 30 * 30 - 1);
+		assertEquals(onHeap.finishedCosts, direct.finishedCosts);
+		assertEquals(pathCost(graph, onHeap.path), pathCost(graph, direct.path));
+		assertEquals(graph.getWeight(31, 32), offHeap.getWeight(31, 32));
+		assertNull(offHeap.getWeight(0, 31));
+
+		offHeap.close();
+		assertThrows(IllegalStateException.class, () -> offHeap.shortestPaths(0));
+		assertThrows(IllegalStateException.class, () -> builder.addVertex(-1));
+
+		// Edges added in no particular order are sorted into place, each
+		// vertex keeping its edges in the order they were added, which
+		// the order DFS visits in shows
+		Random random = new Random(24);
+		WeightedGraph.Builder<Integer> onHeapBuilder = new WeightedGraph.Builder<Integer>();
+		OffHeapGraph.Builder<Integer> offHeapBuilder = new OffHeapGraph.Builder<Integer>();
+		for (int v = 0; v < 2000; v++) {
+			onHeapBuilder.addVertex(v);
+			offHeapBuilder.addVertex(v);
+		}
+		for (int e = 0; e < 20000; e++) {
+			int from = random.nextInt(2000);
+			int to = random.nextInt(2000);
+			int weight = random.nextInt(50);
+			onHeapBuilder.addEdgeByIndex(from, to, weight);
+			offHeapBuilder.addEdgeByIndex(from, to, weight);
+		}
+		WeightedGraph<Integer> shuffled = onHeapBuilder.build();
+		OffHeapGraph<Integer> sorted = offHeapBuilder.build();
+		onHeap.visited.clear();
+		direct.visited.clear();
+		shuffled.addObserver(onHeap);
+		sorted.addObserver(direct);
+		shuffled.DoDFS(0, 1999);
+		sorted.DoDFS(0, 1999);
+		assertEquals(onHeap.visited, direct.visited);
+		assertEquals(20000, sorted.edgeCount());
+		sorted.close();
+	}
+
+	@Test
+	public void testEdgeListImport() throws IOException {
+		Path file = Files.createTempFile("edges", ".txt");
+		try {
+			Files.write(file, ("c a small road network\r\n"
+					+ "p sp 4 5\r\n"
+					+ "c arcs\r\n"
+					+ "a 1 2 7\r\n"
+					+ "a 2 3\t1\r\n"
+					+ "a 1 3 9\r\n"
+					+ "\r\n"
+					+ "a 3 4 2\r\n"
+					+ "a 4 1 0").getBytes());
+			List<Long> progress = new ArrayList<Long>();
+			WeightedGraph<String> dimacs = EdgeListImporter.readDimacs(file, ForkJoinPool.commonPool(),
+					(done, total) -> progress.add(done * 100 / total));
+			assertEquals(Integer.valueOf(7), dimacs.getWeight("1", "2"));
+			assertEquals(Integer.valueOf(0), dimacs.getWeight("4", "1"));
+			assertNull(dimacs.getWeight("2", "1"));
+			assertEquals(Integer.valueOf(10), dimacs.shortestPaths("1").costTo("4"));
+			assertEquals(Long.valueOf(100), progress.get(progress.size() - 1));
+
+			Files.write(file, ("# Directed graph\n"
+					+ "# FromNodeId\tToNodeId\n"
+					+ "30\t1000000\n"
+					+ "1000000\t7\n"
+					+ "7 30 4\n").getBytes());
+			WeightedGraph<String> snap = EdgeListImporter.readSnap(file);
+			assertEquals(Integer.valueOf(1), snap.getWeight("30", "1000000"));
+			assertEquals(Integer.valueOf(4), snap.getWeight("7", "30"));
+			assertFalse(snap.containsVertex("8"));
+
+			Files.write(file, "p sp 2 1\na 1 3 1\n".getBytes());
+			assertThrows(IOException.class, () -> EdgeListImporter.readDimacs(file));
+			Files.write(file, "c no problem line\na 1 2 1\n".getBytes());
+			assertThrows(IOException.class, () -> EdgeListImporter.readDimacs(file));
+			Files.write(file, "p sp 2 1\na 1 2 1\np sp 2 1\n".getBytes());
+			assertThrows(IOException.class, () -> EdgeListImporter.readDimacs(file));
+			Files.write(file, "p sp 2 2000000000\na 1 2 1\n".getBytes());
+			assertThrows(IOException.class, () -> EdgeListImporter.readDimacs(file));
+			Files.write(file, "1 2 x\n".getBytes());
+			assertThrows(IOException.class, () -> EdgeListImporter.readSnap(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testEdgeListImportAcrossChunks() throws IOException {
+		Random random = new Random(25);
+		StringBuilder dimacs = new StringBuilder("c arcs of a random graph\n");
+		// Blank lines that run the problem line over the end of the first
+		// 64KB read of the header
+		while (dimacs.length() < 65530) {
+			dimacs.append(random.nextBoolean() ? "    \n" : "\t\r\n");
+		}
+		dimacs.append("p sp 300 2000\n");
+		StringBuilder snap = new StringBuilder("# FromNodeId\tToNodeId\n");
+		for (int i = 0; i < 2000; i++) {
+			int u = 1 + random.nextInt(300);
+			int v = 1 + random.nextInt(300);
+			int w = random.nextInt(1000);
+			dimacs.append(i % 50 == 0 ? "c a comment among the arcs\n" : "");
+			dimacs.append("a ").append(u).append(random.nextBoolean() ? " " : "\t  ").append(v)
+					.append(' ').append(w).append(i % 3 == 0 ? "\r\n" : "\n");
+			snap.append(u * 7919).append('\t').append(v * 7919)
+					.append(i % 2 == 0 ? "\n" : " " + w + "\n");
+		}
+		// No newline after the last line
+		dimacs.setLength(dimacs.length() - 1);
+		snap.setLength(snap.length() - 1);
+
+		Path file = Files.createTempFile("edges", ".txt");
+		Path saved = Files.createTempFile("graph", ".wgph");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			String[] texts = {dimacs.toString(), snap.toString()};
+			for (int format = 0; format < 2; format++) {
+				Files.write(file, texts[format].getBytes());
+				WeightedGraph<String> whole = format == 0 ? EdgeListImporter.readDimacs(file)
+						: EdgeListImporter.readSnap(file);
+				whole.save(saved, VertexCodec.strings());
+				byte[] expected = Files.readAllBytes(saved);
+				assertEquals(2000, MappedGraph.open(saved, VertexCodec.strings()).edgeCount());
+
+				// Chunk sizes that end chunks in every part of a line,
+				// down to one line per chunk
+				for (int chunkBytes : new int[] {1, 5, 64, 999, 4096}) {
+					List<Long> progress = new ArrayList<Long>();
+					WeightedGraph<String> chunked = format == 0
+							? EdgeListImporter.readDimacs(file, pool, (done, total) -> progress.add(done), chunkBytes)
+							: EdgeListImporter.readSnap(file, pool, (done, total) -> progress.add(done), chunkBytes);
+					chunked.save(saved, VertexCodec.strings());
+					assertTrue(Arrays.equals(expected, Files.readAllBytes(saved)));
+					assertTrue(progress.size() > 1);
+					for (int i = 1; i < progress.size(); i++) {
+						assertTrue(progress.get(i - 1) < progress.get(i));
+					}
+					assertEquals(Long.valueOf(Files.size(file)), progress.get(progress.size() - 1));
+				}
+			}
+		} finally {
+			pool.shutdown();
+			Files.delete(file);
+			Files.delete(saved);
+		}
+	}
+
+	private static <V> int pathCost(WeightedGraph<V> graph, List<V> path) {
+		int cost = 0;
+		for (int i = 1; i < path.size(); i++) {
+			cost += graph.getWeight(path.get(i - 1), path.get(i));
+		}
+		return cost;
+	}
+
+	/* Builds a side x side grid with edges in both directions between
+	 * neighbours and weights from 1 to 9, the same shape as a MazeGraph
+	 * with no walls.
+	 */
+	private static WeightedGraph<Integer> gridGraph(int side) {
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < side * side; v++) {
+			graph.addVertex(v);
+		}
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				int v = y * side + x;
+				if (x + 1 < side) {
+					int w = (v * 7 + 3) % 9 + 1;
+					graph.addEdge(v, v + 1, w);
+					graph.addEdge(v + 1, v, w);
+				}
+				if (y + 1 < side) {
+					int w = (v * 5 + 1) % 9 + 1;
+					graph.addEdge(v, v + side, w);
+					graph.addEdge(v + side, v, w);
+				}
+			}
+		}
+		return graph;
+	}
+
+	/* Remembers everything the graph reports, for checking afterwards */
+	private static class RecordingObserver<V> implements GraphAlgorithmObserver<V> {
+		List<V> visited = new ArrayList<V>();
+		List<V> finished = new ArrayList<V>();
+		List<Integer> finishedCosts = new ArrayList<Integer>();
+		List<V> path;
+		boolean searchOver;
+
+		public void notifyDFSHasBegun() {
+		}
+
+		public void notifyBFSHasBegun() {
+		}
+
+		public void notifyVisit(V vertexBeingVisited) {
+			visited.add(vertexBeingVisited);
+		}
+
+		public void notifySearchIsOver() {
+			searchOver = true;
+		}
+
+		public void notifyDijkstraHasBegun() {
+		}
+
+		public void notifyDijkstraVertexFinished(V vertexAddedToFinishedSet, Integer costOfPath) {
+			finished.add(vertexAddedToFinishedSet);
+			finishedCosts.add(costOfPath);
+		}
+
+		public void notifyDijkstraIsOver(List<V> path) {
+			this.path = path;
+		}
+	}
+	
 }
\ No newline at end of file
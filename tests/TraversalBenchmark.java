@@ -0,0 +1,103 @@
+package tests;
+
+import java.util.List;
+
+import graph.GraphAlgorithmObserver;
+import graph.MazeGraph;
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>Times DoBFS and DoDFS over whole mazes of growing size and prints
+ * the time per visit.  Traversals that are linear in the size of the
+ * maze cost about the same per visit at every size; quadratic ones
+ * cost four times as much each time the side doubles.</P>
+ *
+ * <P>This is not a unit test, because its timings depend on the
+ * machine and on what else it is doing.  Run it on its own, for
+ * example with "java -Xmx4g tests.TraversalBenchmark".</P>
+ */
+public final class TraversalBenchmark {
+
+	private static final int[] SIDES = {250, 500, 1000, 2000};
+	private static final int RUNS = 5;
+
+	private TraversalBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		// Warm up on a small maze, so that the first size is not timed
+		// while the searches are still being compiled
+		MazeGraph warm = graph(new Maze(200, 200, 0, 200));
+		VisitCounter warmCounter = new VisitCounter();
+		warm.addObserver(warmCounter);
+		for (int i = 0; i < 20; i++) {
+			traverse(warm, warmCounter, true);
+			traverse(warm, warmCounter, false);
+		}
+
+		System.out.println("side       junctures   BFS ns/visit   DFS ns/visit");
+		for (int side : SIDES) {
+			MazeGraph graph = graph(new Maze(side, side, 0, side));
+			VisitCounter counter = new VisitCounter();
+			graph.addObserver(counter);
+			double bfs = Double.MAX_VALUE;
+			double dfs = Double.MAX_VALUE;
+			long visits = 0;
+			for (int run = 0; run < RUNS; run++) {
+				long before = System.nanoTime();
+				visits = traverse(graph, counter, true);
+				bfs = Math.min(bfs, (double) (System.nanoTime() - before) / visits);
+				before = System.nanoTime();
+				visits = traverse(graph, counter, false);
+				dfs = Math.min(dfs, (double) (System.nanoTime() - before) / visits);
+			}
+			System.out.printf("%-10d %-11d %-14.1f %.1f%n", side, visits, bfs, dfs);
+		}
+	}
+
+	/* A graph of the maze plus a juncture that nothing leads to, so that
+	 * a search for it goes over the whole maze
+	 */
+	private static MazeGraph graph(Maze maze) {
+		MazeGraph graph = new MazeGraph(maze);
+		graph.addVertex(new Juncture(-1, -1));
+		return graph;
+	}
+
+	private static long traverse(MazeGraph graph, VisitCounter counter, boolean breadthFirst) {
+		counter.visits = 0;
+		if (breadthFirst) {
+			graph.DoBFS(new Juncture(0, 0), new Juncture(-1, -1));
+		} else {
+			graph.DoDFS(new Juncture(0, 0), new Juncture(-1, -1));
+		}
+		return counter.visits;
+	}
+
+	private static class VisitCounter implements GraphAlgorithmObserver<Juncture> {
+		long visits;
+
+		public void notifyDFSHasBegun() {
+		}
+
+		public void notifyBFSHasBegun() {
+		}
+
+		public void notifyVisit(Juncture vertexBeingVisited) {
+			visits++;
+		}
+
+		public void notifySearchIsOver() {
+		}
+
+		public void notifyDijkstraHasBegun() {
+		}
+
+		public void notifyDijkstraVertexFinished(Juncture vertexAddedToFinishedSet, Integer costOfPath) {
+		}
+
+		public void notifyDijkstraIsOver(List<Juncture> path) {
+		}
+	}
+}